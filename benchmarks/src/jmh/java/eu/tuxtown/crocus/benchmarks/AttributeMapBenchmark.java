@@ -0,0 +1,57 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.impl.attribute.AttributeMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Externalization of the attribute maps of 1000 events into a single stream.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributeMapBenchmark {
+
+    private static final int MAPS = 1000;
+
+    private List<AttributeMap> maps;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+        this.maps = BenchmarkRuntime.events("event", MAPS, 0).stream().map(Event::attributes).map(AttributeMap::new).toList();
+        this.data = this.writeExternal();
+    }
+
+    @Benchmark
+    public byte[] writeExternal() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (AttributeMap map : this.maps) {
+                map.writeExternal(out);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public void readExternal(Blackhole blackhole) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(this.data))) {
+            for (int i = 0; i < MAPS; i++) {
+                AttributeMap map = new AttributeMap();
+                map.readExternal(in);
+                blackhole.consume(map);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.attribute.Attribute;
+import eu.tuxtown.crocus.api.attribute.AttributeAdapters;
+import eu.tuxtown.crocus.api.attribute.Attributes;
+import eu.tuxtown.crocus.api.attribute.DefaultedAttribute;
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.core.CrocusRuntime;
+import eu.tuxtown.crocus.core.loader.Services;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+// A Crocus runtime without any plugins, so core code can run outside the launcher. Attributes must be defined on classes
+// from the plugin layer. The boot layer is used as plugin layer, so the benchmark attributes can use JDK types.
+@NotNullByDefault
+public final class BenchmarkRuntime {
+
+    private static final List<String> CATEGORIES = List.of("talk", "workshop", "meeting", "birthday", "holiday", "other");
+
+    public static final Attribute<String> CATEGORY;
+    public static final Attribute<Integer> PRIORITY;
+    public static final DefaultedAttribute<List<String>> TAGS;
+
+    static {
+        Path path;
+        try {
+            path = Files.createTempDirectory("crocus-benchmarks");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CrocusRuntime runtime = new CrocusRuntime(path, ModuleLayer.boot(), false);
+        CATEGORY = Attributes.create("category", String.class, AttributeAdapters.STRING);
+        PRIORITY = Attributes.create("priority", Integer.class, AttributeAdapters.INT);
+        TAGS = Attributes.createList("tags", String.class, AttributeAdapters.STRING);
+        runtime.initialize(Map.of(CATEGORY.name(), CATEGORY, PRIORITY.name(), PRIORITY, TAGS.name(), TAGS), Services.EMPTY);
+    }
+
+    private BenchmarkRuntime() {}
+
+    /**
+     * Runs an action and discards everything it logs.
+     */
+    public static <T> T quiet(Callable<T> action) throws Exception {
+        return CrocusRuntime.get().newLogSection().call(action);
+    }
+
+    /**
+     * Creates synthetic events. The same arguments always produce the same events.
+     */
+    public static List<Event> events(String idPrefix, int count, long seed) {
+        Random random = new Random(seed);
+        Instant base = Instant.parse("2025-01-01T08:00:00Z");
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Event.Builder builder = Event.builder(idPrefix + i);
+            builder.name("Event " + i + " " + Long.toHexString(random.nextLong()));
+            if (random.nextBoolean()) builder.description("Description of event " + i + ".\n" + "Lorem ipsum dolor sit amet. ".repeat(1 + random.nextInt(8)));
+            if (random.nextBoolean()) builder.location("Room " + random.nextInt(500));
+            if (random.nextInt(10) == 0) builder.url("https://example.com/events/" + i);
+            Instant start = base.plus(Duration.ofMinutes(15L * random.nextInt(4 * 24 * 365)));
+            if (random.nextInt(10) == 0) {
+                LocalDate day = LocalDate.ofInstant(start, ZoneOffset.UTC);
+                builder.day(day, day.plusDays(random.nextInt(3)));
+            } else {
+                builder.time(start, start.plus(Duration.ofMinutes(15L * (1 + random.nextInt(16)))));
+            }
+            builder.attribute(CATEGORY, CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+            builder.attribute(PRIORITY, random.nextInt(10));
+            if (random.nextInt(3) == 0) builder.attribute(TAGS, Stream.generate(() -> "tag" + random.nextInt(20)).limit(1 + random.nextInt(4)).toList());
+            events.add(builder.build());
+        }
+        return List.copyOf(events);
+    }
+
+    /**
+     * Returns a copy of the events where every {@code n}-th event is renamed.
+     */
+    public static List<Event> modify(List<Event> events, int n) {
+        List<Event> modified = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            modified.add(i % n == 0 ? Event.builder(event).name(event.name() + " (modified)").build() : event);
+        }
+        return List.copyOf(modified);
+    }
+
+    public static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
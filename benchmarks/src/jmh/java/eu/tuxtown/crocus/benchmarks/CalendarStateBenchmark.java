@@ -0,0 +1,62 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.api.calendar.EventKey;
+import eu.tuxtown.crocus.core.sync.CalendarState;
+import eu.tuxtown.crocus.impl.dataio.EventFingerprint;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalendarStateBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int events;
+
+    private Path directory;
+    private Path loadPath;
+    private Path savePath;
+    private CalendarState state;
+
+    @Setup
+    public void setup() throws IOException {
+        Map<EventKey, String> idMap = new HashMap<>();
+        Map<EventKey, EventFingerprint> fingerprints = new HashMap<>();
+        for (Map.Entry<EventKey, Event> entry : StandIns.keyed("source", BenchmarkRuntime.events("event", this.events, 0)).entrySet()) {
+            idMap.put(entry.getKey(), "internal-" + entry.getValue().id());
+            fingerprints.put(entry.getKey(), EventFingerprint.of(entry.getValue()));
+        }
+        this.state = new CalendarState(Set.of(), Map.copyOf(idMap), Map.copyOf(fingerprints));
+        this.directory = Files.createTempDirectory("crocus-state");
+        this.loadPath = this.directory.resolve("load.dat");
+        this.savePath = this.directory.resolve("save.dat");
+        this.state.save(this.loadPath);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkRuntime.deleteRecursively(this.directory);
+    }
+
+    @Benchmark
+    public CalendarState load() throws IOException {
+        return CalendarState.load(this.loadPath);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        this.state.save(this.savePath);
+    }
+}
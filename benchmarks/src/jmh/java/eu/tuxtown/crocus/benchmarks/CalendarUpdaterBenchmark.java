@@ -0,0 +1,71 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.Calendar;
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.api.calendar.EventKey;
+import eu.tuxtown.crocus.api.service.CalendarType;
+import eu.tuxtown.crocus.core.configuration.ConfiguredService;
+import eu.tuxtown.crocus.core.sync.CalendarUpdater;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Incremental calendar updates against an in-memory calendar. This covers the diff, the sync journal and saving the
+// calendar state.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalendarUpdaterBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int events;
+
+    private Path calendarsPath;
+    private ConfiguredService<CalendarType<?, ?>, Calendar> calendar;
+    private Map<EventKey, Event> original;
+    private Map<EventKey, Event> modified;
+    private boolean useModified;
+
+    @Setup
+    public void setup() throws Exception {
+        this.calendarsPath = Files.createTempDirectory("crocus-calendars");
+        this.calendar = StandIns.calendar("benchmark");
+        List<Event> events = BenchmarkRuntime.events("event", this.events, 0);
+        this.original = StandIns.keyed("source", events);
+        // Every update alternates between the original and the modified events, so 10% of the events change.
+        this.modified = StandIns.keyed("source", BenchmarkRuntime.modify(events, 10));
+        this.useModified = false;
+        this.update(this.original);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkRuntime.deleteRecursively(this.calendarsPath);
+    }
+
+    @Benchmark
+    public void unchanged() throws Exception {
+        this.update(this.original);
+    }
+
+    @Benchmark
+    public void changed() throws Exception {
+        this.useModified = !this.useModified;
+        this.update(this.useModified ? this.modified : this.original);
+    }
+
+    private void update(Map<EventKey, Event> events) throws Exception {
+        BenchmarkRuntime.quiet(() -> {
+            CalendarUpdater.updateCalendar(this.calendarsPath, this.calendar, events, false);
+            return null;
+        });
+    }
+}
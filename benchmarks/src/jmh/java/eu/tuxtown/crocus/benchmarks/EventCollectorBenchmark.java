@@ -0,0 +1,69 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.Calendar;
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.api.calendar.EventFilter;
+import eu.tuxtown.crocus.api.calendar.EventKey;
+import eu.tuxtown.crocus.api.service.CalendarType;
+import eu.tuxtown.crocus.api.service.EventSourceType;
+import eu.tuxtown.crocus.core.configuration.ConfiguredEventSource;
+import eu.tuxtown.crocus.core.configuration.ConfiguredService;
+import eu.tuxtown.crocus.core.sync.EventCollector;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventCollectorBenchmark {
+
+    private static final int SOURCES = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int events;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"false", "true"})
+    public boolean filtered;
+
+    private Map<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>> sources;
+
+    @Setup
+    public void setup() {
+        ConfiguredService<CalendarType<?, ?>, Calendar> calendar = StandIns.calendar("benchmark");
+        // Drops every fourth event and renames the others, similar to a typical filter from the configuration.
+        EventFilter filter = new EventFilter() {
+
+            @Override
+            public String name() {
+                return "benchmark";
+            }
+
+            @Override
+            public @Nullable Event filter(EventKey key, Event event) {
+                if (event.name().hashCode() % 4 == 0) return null;
+                return Event.builder(event).name("[" + key.sourceName() + "] " + event.name()).build();
+            }
+        };
+        this.sources = new HashMap<>();
+        for (int i = 0; i < SOURCES; i++) {
+            String name = "source" + i;
+            this.sources.put(name, StandIns.source(name, BenchmarkRuntime.events("event", this.events / SOURCES, i), this.filtered ? List.of(filter) : List.of(), List.of(calendar)));
+        }
+    }
+
+    @Benchmark
+    public EventCollector.EventCollection collectEvents() throws Exception {
+        return BenchmarkRuntime.quiet(() -> EventCollector.collectEvents(this.sources, this.parallelism));
+    }
+}
@@ -0,0 +1,55 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Diffs two event lists the way the daemon compares the events of a source between runs. The compared lists hold
+// distinct but equal instances, so equals can't stop at the identity check.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventEqualityBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int events;
+
+    private List<Event> original;
+    private List<Event> copy;
+    private Set<Event> originalSet;
+    private List<Event> modified;
+
+    @Setup
+    public void setup() {
+        this.original = BenchmarkRuntime.events("event", this.events, 0);
+        this.copy = BenchmarkRuntime.events("event", this.events, 0);
+        this.originalSet = new HashSet<>(this.original);
+        this.modified = BenchmarkRuntime.modify(this.copy, 10);
+    }
+
+    @Benchmark
+    public boolean unchanged() {
+        return this.original.equals(this.copy);
+    }
+
+    @Benchmark
+    public int changed() {
+        int changed = 0;
+        for (Event event : this.modified) {
+            if (!this.originalSet.contains(event)) changed++;
+        }
+        return changed;
+    }
+
+    @Benchmark
+    public Set<Event> hashAll() {
+        return new HashSet<>(this.copy);
+    }
+}
@@ -0,0 +1,47 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.impl.json.EventJson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventJsonBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int events;
+
+    @Param({"false", "true"})
+    public boolean compact;
+
+    private List<Event> eventList;
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        this.eventList = BenchmarkRuntime.events("event", this.events, 0);
+        this.json = this.writeEvents();
+    }
+
+    @Benchmark
+    public String writeEvents() throws IOException {
+        StringWriter writer = new StringWriter();
+        EventJson.writeEvents(writer, this.eventList, this.compact);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public List<Event> readEvents() throws IOException {
+        return EventJson.readEvents(new StringReader(this.json));
+    }
+}
@@ -0,0 +1,50 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Resolves event times in a time zone, like the time based checks of the simple filter do.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventTimeBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int events;
+
+    @Param({"UTC", "Europe/Berlin"})
+    public String zone;
+
+    private List<Event> eventList;
+    private ZoneId zoneId;
+
+    @Setup
+    public void setup() {
+        this.eventList = BenchmarkRuntime.events("event", this.events, 0);
+        this.zoneId = ZoneId.of(this.zone);
+    }
+
+    @Benchmark
+    public void days(Blackhole blackhole) {
+        for (Event event : this.eventList) {
+            blackhole.consume(event.time().startDay(this.zoneId));
+            blackhole.consume(event.time().endDay(this.zoneId));
+        }
+    }
+
+    @Benchmark
+    public void instants(Blackhole blackhole) {
+        for (Event event : this.eventList) {
+            blackhole.consume(event.time().start(this.zoneId));
+            blackhole.consume(event.time().end(this.zoneId));
+        }
+    }
+}
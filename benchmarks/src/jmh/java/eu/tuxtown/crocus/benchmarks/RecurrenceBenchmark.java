@@ -0,0 +1,70 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.util.Frequency;
+import biweekly.util.Recurrence;
+import eu.tuxtown.crocus.sesquiannual.CalendarQuery;
+import eu.tuxtown.crocus.sesquiannual.SequenceBehavior;
+import eu.tuxtown.crocus.sesquiannual.VEventGroup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Expands recurring events over two years. Every tenth recurring event has a replaced instance.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurrenceBenchmark {
+
+    private static final Instant START = Instant.parse("2025-01-01T08:00:00Z");
+    private static final Date END = Date.from(START.plus(Duration.ofDays(2 * 365)));
+
+    @Param({"10", "100", "1000"})
+    public int groups;
+
+    private List<VEventGroup> eventGroups;
+
+    @Setup
+    public void setup() {
+        ICalendar calendar = new ICalendar();
+        for (int i = 0; i < this.groups; i++) {
+            Instant start = START.plus(Duration.ofMinutes(15L * i));
+            VEvent event = new VEvent();
+            event.setUid("event" + i);
+            event.setSummary("Event " + i);
+            event.setDateStart(Date.from(start), true);
+            event.setDateEnd(Date.from(start.plus(Duration.ofHours(1))), true);
+            event.setRecurrenceRule(new Recurrence.Builder(i % 2 == 0 ? Frequency.DAILY : Frequency.WEEKLY).interval(1 + i % 3).build());
+            calendar.addEvent(event);
+            if (i % 10 == 0) {
+                VEvent replacement = new VEvent();
+                replacement.setUid("event" + i);
+                replacement.setSummary("Event " + i + " (moved)");
+                replacement.setRecurrenceId(Date.from(start.plus(Duration.ofDays(7))));
+                replacement.setDateStart(Date.from(start.plus(Duration.ofDays(7)).plus(Duration.ofHours(2))), true);
+                replacement.setDateEnd(Date.from(start.plus(Duration.ofDays(7)).plus(Duration.ofHours(3))), true);
+                calendar.addEvent(replacement);
+            }
+        }
+        this.eventGroups = new CalendarQuery(calendar, ZoneOffset.UTC).eventGroups();
+    }
+
+    @Benchmark
+    public void instances(Blackhole blackhole) {
+        for (VEventGroup group : this.eventGroups) {
+            group.instances(SequenceBehavior.OBSOLETE)
+                    .takeWhile(instance -> instance.startDate().before(END))
+                    .forEach(blackhole::consume);
+        }
+    }
+}
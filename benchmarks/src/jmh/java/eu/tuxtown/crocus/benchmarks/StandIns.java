@@ -0,0 +1,136 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.api.calendar.*;
+import eu.tuxtown.crocus.api.service.CalendarType;
+import eu.tuxtown.crocus.api.service.EventSourceType;
+import eu.tuxtown.crocus.core.configuration.ConfiguredEventSource;
+import eu.tuxtown.crocus.core.configuration.ConfiguredService;
+import eu.tuxtown.crocus.core.loader.Services;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+// In-memory sources and calendars, so the benchmarks run offline.
+@NotNullByDefault
+public final class StandIns {
+
+    private static final Services.Service<EventSourceType<?, ?>> SOURCE_SERVICE = new Services.Service<>(new Services.Key("benchmarks", "memory"), MemorySourceType.class.getModule(), MemorySourceType.class, new MemorySourceType());
+    private static final Services.Service<CalendarType<?, ?>> CALENDAR_SERVICE = new Services.Service<>(new Services.Key("benchmarks", "memory"), MemoryCalendarType.class.getModule(), MemoryCalendarType.class, new MemoryCalendarType());
+
+    private StandIns() {}
+
+    public static ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource> source(String name, List<Event> events, List<EventFilter> filterChain, List<ConfiguredService<CalendarType<?, ?>, Calendar>> recipients) {
+        return new ConfiguredService<>(SOURCE_SERVICE, name, new ConfiguredEventSource(new MemorySource(name, events), filterChain, recipients, null));
+    }
+
+    public static ConfiguredService<CalendarType<?, ?>, Calendar> calendar(String id) {
+        return new ConfiguredService<>(CALENDAR_SERVICE, id, new MemoryCalendar(id));
+    }
+
+    public static Map<EventKey, Event> keyed(String sourceName, List<Event> events) {
+        Map<EventKey, Event> map = HashMap.newHashMap(events.size());
+        for (Event event : events) {
+            map.put(new EventKey("benchmarks", sourceName, event.id()), event);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    public record MemorySource(String name, List<Event> events) implements EventSource {
+
+        @Override
+        public List<Event> retrieveEvents() {
+            return this.events();
+        }
+    }
+
+    public static final class MemoryCalendar implements Calendar {
+
+        private final String id;
+        private final Map<String, Event> events;
+        private long nextId;
+
+        public MemoryCalendar(String id) {
+            this.id = id;
+            this.events = new HashMap<>();
+            this.nextId = 0;
+        }
+
+        @Override
+        public String id() {
+            return this.id;
+        }
+
+        @Override
+        public String name() {
+            return "memory:" + this.id;
+        }
+
+        @Override
+        public synchronized OptionalInt deleteAllEvents() {
+            int size = this.events.size();
+            this.events.clear();
+            return OptionalInt.of(size);
+        }
+
+        @Override
+        public synchronized void deleteEvents(Set<String> events) {
+            this.events.keySet().removeAll(events);
+        }
+
+        @Override
+        public synchronized void updateEvents(CalendarData data, CalendarIds ids) {
+            for (Map.Entry<EventKey, Event> entry : data.events().entrySet()) {
+                @Nullable String internalId = ids.getId(entry.getKey());
+                if (internalId == null) {
+                    internalId = Long.toString(this.nextId++);
+                    ids.setId(entry.getKey(), internalId);
+                }
+                this.events.put(internalId, entry.getValue());
+            }
+            for (EventKey key : data.deletedEvents()) {
+                @Nullable String internalId = ids.getId(key);
+                if (internalId != null) {
+                    this.events.remove(internalId);
+                    ids.removeId(key);
+                }
+            }
+        }
+    }
+
+    private static final class MemorySourceType implements EventSourceType<MemorySource, Object> {
+
+        @Override
+        public String name() {
+            return "memory";
+        }
+
+        @Override
+        public Object createDelegate() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MemorySource create(Object delegate) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class MemoryCalendarType implements CalendarType<MemoryCalendar, Object> {
+
+        @Override
+        public String name() {
+            return "memory";
+        }
+
+        @Override
+        public Object createDelegate() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MemoryCalendar create(Object delegate) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package eu.tuxtown.crocus.benchmarks;
+
+import eu.tuxtown.crocus.impl.json.TimeJson;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Compares the hand-written timestamp codec with the DateTimeFormatter based one. Every fourth instant has a fraction.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeJsonBenchmark {
+
+    private static final int COUNT = 1000;
+
+    private List<Instant> instants;
+    private List<String> strings;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        Instant base = Instant.parse("2025-01-01T08:00:00Z");
+        List<Instant> instants = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            Instant instant = base.plus(Duration.ofMinutes(15L * random.nextInt(4 * 24 * 365)));
+            if (i % 4 == 0) instant = instant.plusMillis(1 + random.nextInt(999));
+            instants.add(instant);
+        }
+        this.instants = List.copyOf(instants);
+        this.strings = instants.stream().map(TimeJson::formatInstantGeneric).toList();
+    }
+
+    @Benchmark
+    public void formatFast(Blackhole blackhole) {
+        for (Instant instant : this.instants) {
+            blackhole.consume(TimeJson.formatInstant(instant));
+        }
+    }
+
+    @Benchmark
+    public void formatGeneric(Blackhole blackhole) {
+        for (Instant instant : this.instants) {
+            blackhole.consume(TimeJson.formatInstantGeneric(instant));
+        }
+    }
+
+    @Benchmark
+    public void parseFast(Blackhole blackhole) {
+        for (String string : this.strings) {
+            blackhole.consume(TimeJson.parseInstant(string));
+        }
+    }
+
+    @Benchmark
+    public void parseGeneric(Blackhole blackhole) {
+        for (String string : this.strings) {
+            blackhole.consume(TimeJson.parseInstantGeneric(string));
+        }
+    }
+}
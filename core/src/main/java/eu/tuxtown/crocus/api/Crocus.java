@@ -22,6 +22,7 @@ import java.nio.file.attribute.PosixFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 /**
@@ -60,6 +61,15 @@ public class Crocus {
         }
     }
 
+    /**
+     * Captures the current log output. Messages logged by a task running on another thread are
+     * printed in the order of the task that started it, when the task runs inside the captured
+     * {@link LogScope}.
+     */
+    public static LogScope captureLogScope() {
+        return CrocusRuntime.get().captureLogScope();
+    }
+
     /**
      * If called from a plugin, gets a path in which the plugin is free to store whatever
      * data it needs to. Calling this from outside a plugin will fail.
@@ -141,6 +151,18 @@ public class Crocus {
         DslMetaClass.applyTo(object);
     }
 
+    /**
+     * A log output captured by {@link #captureLogScope()}.
+     */
+    @NotNullByDefault
+    public interface LogScope {
+
+        /**
+         * Runs the given action on the current thread, logging into the captured log output.
+         */
+        <T> T call(Callable<T> action) throws Exception;
+    }
+
     /**
      * A type of {@link #pluginPath(Location) plugin path}.
      */
@@ -29,7 +29,7 @@ public interface AttributeAdapter<T> {
      * The methods to retrieve values will coerce the actual value to the desired type.
      */
     @NotNullByDefault
-    sealed interface Value<T> permits NullValue, BooleanValue, StringValue, IntegralValue, DecimalValue, PackedValue {
+    sealed interface Value<T> permits NullValue, BooleanValue, StringValue, IntegralValue, LongValue, DecimalValue, DoubleValue, PackedValue {
         @Nullable T value();
         String stringValue();
         boolean booleanValue();
@@ -143,6 +143,54 @@ public interface AttributeAdapter<T> {
         }
     }
 
+    /**
+     * An integral value that fits into a long. Behaves like an {@link IntegralValue} with the same value, but doesn't
+     * need a {@link BigInteger} unless one is requested.
+     */
+    @NotNullByDefault
+    record LongValue(long longValue) implements Value<Long> {
+
+        @Override
+        public Long value() {
+            return this.longValue();
+        }
+
+        @Override
+        public String stringValue() {
+            return Long.toString(this.longValue());
+        }
+
+        @Override
+        public boolean booleanValue() {
+            return this.longValue() != 0;
+        }
+
+        @Override
+        public BigInteger integralValue() {
+            return BigInteger.valueOf(this.longValue());
+        }
+
+        @Override
+        public BigDecimal decimalValue() {
+            return BigDecimal.valueOf(this.longValue()).stripTrailingZeros();
+        }
+
+        @Override
+        public int intValue() {
+            return (int) this.longValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return (float) this.longValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return (double) this.longValue();
+        }
+    }
+
     @NotNullByDefault
     record DecimalValue(BigDecimal value) implements Value<BigDecimal> {
 
@@ -171,6 +219,61 @@ public interface AttributeAdapter<T> {
         }
     }
 
+    /**
+     * A finite decimal value that fits into a double. Behaves like a {@link DecimalValue} created from the same
+     * double, but doesn't need a {@link BigDecimal} unless one is requested.
+     */
+    @NotNullByDefault
+    record DoubleValue(double doubleValue) implements Value<Double> {
+
+        // Below 2^52, truncating the double gives the same result as truncating its shortest decimal representation,
+        // which is what the decimal value holds. Larger doubles are integers, but their decimal representation may not
+        // be exact.
+        private static final double INT_RANGE = 0x1p31;
+        private static final double LONG_RANGE = 0x1p52;
+
+        public DoubleValue {
+            if (!Double.isFinite(doubleValue)) throw new IllegalArgumentException("Decimal values must be finite: " + doubleValue);
+        }
+
+        @Override
+        public Double value() {
+            return this.doubleValue();
+        }
+
+        @Override
+        public String stringValue() {
+            return this.decimalValue().stripTrailingZeros().toString();
+        }
+
+        @Override
+        public boolean booleanValue() {
+            return this.doubleValue() != 0;
+        }
+
+        @Override
+        public BigInteger integralValue() {
+            return this.decimalValue().toBigInteger();
+        }
+
+        @Override
+        public BigDecimal decimalValue() {
+            return new BigDecimal(Double.toString(this.doubleValue()));
+        }
+
+        @Override
+        public int intValue() {
+            double value = this.doubleValue();
+            return -INT_RANGE < value && value < INT_RANGE ? (int) value : this.integralValue().intValue();
+        }
+
+        @Override
+        public long longValue() {
+            double value = this.doubleValue();
+            return -LONG_RANGE < value && value < LONG_RANGE ? (long) value : this.integralValue().longValue();
+        }
+    }
+
     @NotNullByDefault
     record BooleanValue(boolean booleanValue) implements Value<Boolean> {
 
@@ -44,7 +44,7 @@ public class AttributeAdapters {
 
         @Override
         public Value<?> store(Integer attributeValue) {
-            return new IntegralValue(attributeValue);
+            return new LongValue(attributeValue);
         }
 
         @Override
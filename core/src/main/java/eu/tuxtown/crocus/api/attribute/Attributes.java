@@ -2,6 +2,7 @@ package eu.tuxtown.crocus.api.attribute;
 
 import eu.tuxtown.crocus.api.service.AttributeProvider;
 import eu.tuxtown.crocus.core.CrocusRuntime;
+import eu.tuxtown.crocus.impl.attribute.AttributeRegistry;
 import org.jetbrains.annotations.NotNullByDefault;
 
 import java.util.List;
@@ -11,6 +12,21 @@ import java.util.Optional;
 @NotNullByDefault
 public class Attributes {
 
+    static {
+        AttributeRegistry.setAccessor(new AttributeRegistry.Accessor() {
+
+            @Override
+            public int index(Attribute<?> attribute) {
+                return ((Impl<?>) attribute).index;
+            }
+
+            @Override
+            public void setIndex(Attribute<?> attribute, int index) {
+                ((Impl<?>) attribute).index = index;
+            }
+        });
+    }
+
     /**
      * Creates a new non-standard attribute. The returned attribute must be registered before it can be used. See
      * {@link AttributeProvider}.
@@ -74,12 +90,15 @@ public class Attributes {
         private final String className;
 
         private final AttributeAdapter<T> adapter;
+        // Index in the attribute registry, assigned when the runtime is initialized.
+        private int index;
 
         private Impl(String name, String moduleName, String className, AttributeAdapter<T> adapter) {
             this.name = name;
             this.moduleName = moduleName;
             this.className = className;
             this.adapter = adapter;
+            this.index = -1;
         }
 
         @Override
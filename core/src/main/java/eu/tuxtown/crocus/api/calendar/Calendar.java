@@ -46,6 +46,13 @@ public interface Calendar {
      */
     void updateEvents(CalendarData data, CalendarIds ids) throws IOException;
 
+    /**
+     * Repairs events that were changed in the calendar outside of Crocus. This is called before every incremental
+     * update, even if none of the collected events changed. Calendars that can't detect outside changes don't need
+     * to implement this.
+     */
+    default void reconcile() throws IOException {}
+
     /**
      * The data to sync in a calendar.
      *
@@ -55,7 +62,8 @@ public interface Calendar {
     record CalendarData(Map<EventKey, Event> events, Set<EventKey> deletedEvents) {}
 
     /**
-     * Provides access to the calendar id map.
+     * Provides access to the calendar id map. All methods are thread safe, so calendars may update ids from
+     * concurrently running requests.
      */
     interface CalendarIds {
 
@@ -69,5 +77,13 @@ public interface Calendar {
          * Gets a calendar internal id for the given event. If the event is already known, an exception will be thrown.
          */
         void setId(EventKey key, String id);
+
+        /**
+         * Removes the id of an event after it has been deleted from the calendar. Calendars should call this as soon
+         * as a deletion is confirmed, so it is not repeated if the update is interrupted. Ids of
+         * {@link CalendarData#deletedEvents() deleted events} that are not removed explicitly are removed after the
+         * update has finished.
+         */
+        void removeId(EventKey key);
     }
 }
@@ -1,16 +1,12 @@
 package eu.tuxtown.crocus.api.calendar;
 
 import eu.tuxtown.crocus.api.Crocus;
-import eu.tuxtown.crocus.api.attribute.Attribute;
 import eu.tuxtown.crocus.core.CrocusRuntime;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.NotNullByDefault;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * An event source that uses several other sources to gather its events.
@@ -22,19 +18,25 @@ public abstract class CompoundEventSource implements EventSource {
 
     @Override
     public List<Event> retrieveEvents() throws IOException {
-        List<Event> allEvents = new ArrayList<>();
+        return EventSource.collectEvents(this);
+    }
+
+    @Override
+    public void retrieveEvents(Consumer<Event> consumer) throws IOException {
         for (EventSource source : this.retrieveSources()) {
             Crocus.info("Querying nested source " + this.name() + "." + source.name());
             CrocusRuntime.get().increaseLogLayer();
             try {
-                List<Event> events = source.retrieveEvents();
-                allEvents.addAll(events.stream().map(event -> prefixEvent(source.name() + ".", event)).toList());
-                Crocus.info("Queried nested source " + this.name() + "." + source.name() + " (" + events.size() + " events)");
+                int[] count = new int[]{ 0 };
+                source.retrieveEvents(event -> {
+                    consumer.accept(prefixEvent(source.name() + ".", event));
+                    count[0] += 1;
+                });
+                Crocus.info("Queried nested source " + this.name() + "." + source.name() + " (" + count[0] + " events)");
             } finally {
                 CrocusRuntime.get().decreaseLogLayer();
             }
         }
-        return Collections.unmodifiableList(allEvents);
     }
 
     private static Event prefixEvent(String prefix, Event event) {
@@ -43,11 +45,7 @@ public abstract class CompoundEventSource implements EventSource {
         event.description().ifPresent(builder::description);
         event.location().ifPresent(builder::location);
         builder.times(event.time());
-        for (Map.Entry<Attribute<?>, ?> entry : event.attributes().entrySet()) {
-            @SuppressWarnings("unchecked")
-            Attribute<Object> objAttribute = (Attribute<@NotNull Object>) entry.getKey();
-            builder.attribute(objAttribute, entry.getValue());
-        }
+        builder.copyAttributes(event);
         return builder.build();
     }
 }
@@ -1,9 +1,11 @@
 package eu.tuxtown.crocus.api.calendar;
 
 import eu.tuxtown.crocus.api.attribute.Attribute;
-import eu.tuxtown.crocus.api.attribute.Attributes;
 import eu.tuxtown.crocus.api.attribute.DefaultedAttribute;
 import eu.tuxtown.crocus.impl.attribute.AttributeMap;
+import eu.tuxtown.crocus.impl.attribute.AttributeRegistry;
+import eu.tuxtown.crocus.impl.calendar.StringPool;
+import eu.tuxtown.crocus.impl.calendar.ZoneTimes;
 import org.jetbrains.annotations.NotNullByDefault;
 import org.jetbrains.annotations.Nullable;
 
@@ -26,15 +28,26 @@ public final class Event implements Serializable {
     private final @Nullable URI url;
     private final EventTime time;
     private final AttributeMap attributes;
+    // Hash over the full content including attributes. Recomputed lazily after deserialization.
+    private transient int hash;
 
-    private Event(String id, String name, @Nullable String description, @Nullable String location, @Nullable URI url, EventTime time, Map<Attribute<?>, ?> attributes) {
+    private Event(String id, String name, @Nullable String description, @Nullable String location, @Nullable URI url, EventTime time, AttributeMap attributes) {
         this.id = id;
-        this.name = name.replace("\r\n", "\n").strip();
-        this.description = description == null ? null : description.replace("\r\n", "\n").strip();
-        this.location = location == null ? null : location.replace("\r\n", "\n").strip();
+        this.name = StringPool.intern(normalize(name));
+        this.description = description == null ? null : StringPool.intern(normalize(description));
+        this.location = location == null ? null : StringPool.intern(normalize(location));
         this.url = (url != null && url.isAbsolute()) ? url : null;
         this.time = time;
-        this.attributes = new AttributeMap(attributes);
+        this.attributes = attributes;
+        this.hash = this.computeHash();
+    }
+
+    // Strings copied from another event are already normalised, don't allocate new ones for them.
+    private static String normalize(String value) {
+        if (value.indexOf('\r') < 0 && (value.isEmpty() || (!Character.isWhitespace(value.charAt(0)) && !Character.isWhitespace(value.charAt(value.length() - 1))))) {
+            return value;
+        }
+        return value.replace("\r\n", "\n").strip();
     }
 
     /**
@@ -109,6 +122,8 @@ public final class Event implements Serializable {
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (!(obj instanceof Event event)) return false;
+        // Events with different content almost always have different hashes, that avoids comparing the attributes.
+        if (this.hashCode() != event.hashCode()) return false;
         if (!Objects.equals(this.id, event.id) || !Objects.equals(this.name, event.name)
                 || !Objects.equals(this.description, event.description) || !Objects.equals(this.location, event.location)
                 || !Objects.equals(this.url, event.url) || !Objects.equals(this.time, event.time)) {
@@ -118,7 +133,7 @@ public final class Event implements Serializable {
         // attributes can contain arrays, check accordingly
         if (!Objects.equals(this.attributes.map().keySet(), event.attributes.map().keySet())) return false;
         for (Attribute<?> attr : this.attributes.map().keySet()) {
-            if (!doEqual(this.attributes.get(attr), event.attributes.get(attr))) return false;
+            if (!doEqual(this.attributes.map().get(attr), event.attributes.map().get(attr))) return false;
         }
         return true;
     }
@@ -138,10 +153,41 @@ public final class Event implements Serializable {
         };
     }
 
+    private static int doHash(Object value) {
+        return switch (value) {
+            case boolean[] array -> Arrays.hashCode(array);
+            case byte[]    array -> Arrays.hashCode(array);
+            case char[]    array -> Arrays.hashCode(array);
+            case short[]   array -> Arrays.hashCode(array);
+            case int[]     array -> Arrays.hashCode(array);
+            case long[]    array -> Arrays.hashCode(array);
+            case float[]   array -> Arrays.hashCode(array);
+            case double[]  array -> Arrays.hashCode(array);
+            case Object[]  array -> Arrays.deepHashCode(array);
+            default              -> value.hashCode();
+        };
+    }
+
     @Override
     public int hashCode() {
-        // Don't hash on attributes as there could be arrays
-        return Objects.hash(this.id, this.name, this.description, this.location, this.time);
+        int hash = this.hash;
+        if (hash == 0) {
+            hash = this.computeHash();
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    private int computeHash() {
+        // attributes can contain arrays, hash them consistently with equals. The attribute hash is independent of the
+        // iteration order of the map.
+        int attributeHash = 0;
+        for (Map.Entry<Attribute<?>, ?> entry : this.attributes.map().entrySet()) {
+            attributeHash += entry.getKey().hashCode() ^ doHash(entry.getValue());
+        }
+        int hash = Objects.hash(this.id, this.name, this.description, this.location, this.url, this.time, attributeHash);
+        // 0 marks a hash that has not been computed yet.
+        return hash == 0 ? 1 : hash;
     }
 
     @Override
@@ -180,11 +226,14 @@ public final class Event implements Serializable {
         private @Nullable String location;
         private @Nullable URI url;
         private @Nullable EventTime time;
-        private final Map<Attribute<?>, Object> attributes;
+        // The attributes are only copied into a mutable map once they are modified.
+        private AttributeMap baseAttributes;
+        private @Nullable Map<Attribute<?>, Object> attributes;
 
         private Builder(String id) {
             this.id = Objects.requireNonNull(id);
-            this.attributes = new HashMap<>();
+            this.baseAttributes = AttributeMap.EMPTY;
+            this.attributes = null;
         }
 
         private Builder(Event event) {
@@ -193,7 +242,8 @@ public final class Event implements Serializable {
             this.description = event.description;
             this.location = event.location;
             this.time = Objects.requireNonNull(event.time);
-            this.attributes = new HashMap<>(event.attributes.map());
+            this.baseAttributes = event.attributes;
+            this.attributes = null;
         }
 
         /**
@@ -275,10 +325,19 @@ public final class Event implements Serializable {
          * Sets a non-standard attribute.
          */
         public <T> Builder attribute(Attribute<T> attribute, T value) {
-            if (Attributes.get(attribute.name()).stream().noneMatch(found -> found == attribute)) {
+            if (!AttributeRegistry.isRegistered(attribute)) {
                 throw new IllegalArgumentException("Attribute not registered: " + attribute);
             }
-            this.attributes.put(attribute, Objects.requireNonNull(value));
+            Object storedValue = Objects.requireNonNull(value) instanceof String string ? StringPool.intern(string) : value;
+            if (this.attributes == null) this.attributes = new HashMap<>(this.baseAttributes.map());
+            this.attributes.put(attribute, storedValue);
+            return this;
+        }
+
+        // Shares the attributes of another event, they are only copied once they are modified.
+        Builder copyAttributes(Event event) {
+            this.baseAttributes = event.attributes;
+            this.attributes = null;
             return this;
         }
 
@@ -288,7 +347,12 @@ public final class Event implements Serializable {
         public Event build() {
             Objects.requireNonNull(this.name, "Event has no name.");
             Objects.requireNonNull(this.time, "Event has no time.");
-            return new Event(this.id, this.name, this.description, this.location, this.url, this.time, Map.copyOf(this.attributes));
+            if (this.attributes != null) {
+                // Keep the immutable copy, so building again does not copy the attributes again.
+                this.baseAttributes = AttributeMap.of(this.attributes);
+                this.attributes = null;
+            }
+            return new Event(this.id, this.name, this.description, this.location, this.url, this.time, this.baseAttributes);
         }
     }
 
@@ -343,12 +407,12 @@ public final class Event implements Serializable {
 
             @Override
             public LocalDate startDay(ZoneId zone) {
-                return ZonedDateTime.ofInstant(this.start(), zone).toLocalDate();
+                return ZoneTimes.day(this.start(), zone);
             }
 
             @Override
             public LocalDate endDay(ZoneId zone) {
-                return ZonedDateTime.ofInstant(this.start(), zone).toLocalDate();
+                return ZoneTimes.day(this.start(), zone);
             }
         }
 
@@ -380,19 +444,16 @@ public final class Event implements Serializable {
 
             @Override
             public LocalDate startDay(ZoneId zone) {
-                return ZonedDateTime.ofInstant(this.start(), zone).toLocalDate();
+                return ZoneTimes.day(this.start(), zone);
             }
 
             @Override
             public LocalDate endDay(ZoneId zone) {
-                ZonedDateTime zdt = ZonedDateTime.ofInstant(this.end(), zone);
-                LocalDate date = zdt.toLocalDate();
-                if (zdt.toLocalTime().equals(LocalTime.MIDNIGHT)) {
-                    date = date.minusDays(1);
-                }
+                // An event ending at 00:00 ends on the previous day.
+                long endDay = ZoneTimes.epochDayBefore(this.end(), zone);
                 // Special case: events with no duration that fall on 00:00
-                LocalDate startDay = this.startDay(zone);
-                return startDay.isAfter(date) ? startDay : date;
+                long startDay = ZoneTimes.epochDay(this.start(), zone);
+                return LocalDate.ofEpochDay(Math.max(startDay, endDay));
             }
         }
 
@@ -414,13 +475,13 @@ public final class Event implements Serializable {
 
             @Override
             public Instant start(ZoneId zone) {
-                return ZonedDateTime.of(this.start(), LocalTime.MIDNIGHT, zone).toInstant();
+                return ZoneTimes.startOfDay(this.start(), zone);
             }
 
             @Override
             public Instant end(ZoneId zone) {
                 // Add one day to include the full end day in the range from start to end instant.
-                return ZonedDateTime.of(this.end().plusDays(1), LocalTime.MIDNIGHT, zone).toInstant();
+                return ZoneTimes.startOfDay(this.end().plusDays(1), zone);
             }
 
             @Override
@@ -3,7 +3,10 @@ package eu.tuxtown.crocus.api.calendar;
 import org.jetbrains.annotations.NotNullByDefault;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @NotNullByDefault
 public interface EventSource {
@@ -17,4 +20,26 @@ public interface EventSource {
      * Retrieves the events from the source. This can be called multiple times on the same source.
      */
     List<Event> retrieveEvents() throws IOException;
+
+    /**
+     * Retrieves the events from the source and passes each of them to the given consumer as soon as it is created.
+     * Sources that produce a lot of events should override this, so the events don't need to be held in memory all
+     * at once. Such sources can implement {@link #retrieveEvents()} through {@link #collectEvents(EventSource)}.
+     * This can be called multiple times on the same source. By default, this passes on the events from
+     * {@link #retrieveEvents()}.
+     */
+    default void retrieveEvents(Consumer<Event> consumer) throws IOException {
+        for (Event event : this.retrieveEvents()) {
+            consumer.accept(event);
+        }
+    }
+
+    /**
+     * Collects the events a source passes to {@link #retrieveEvents(Consumer)} into an unmodifiable list.
+     */
+    static List<Event> collectEvents(EventSource source) throws IOException {
+        List<Event> events = new ArrayList<>();
+        source.retrieveEvents(events::add);
+        return Collections.unmodifiableList(events);
+    }
 }
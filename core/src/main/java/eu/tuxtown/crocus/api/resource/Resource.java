@@ -56,6 +56,17 @@ public interface Resource {
         return Optional.empty();
     }
 
+    /**
+     * Gets an identifier for the current content of this resource. As long as the version stays the same, the content
+     * of the resource is considered unchanged. Event sources can use this to skip parsing a resource again, if it has
+     * not been modified since they last read it.
+     *
+     * @return The content version or {@link Optional#empty()} if this resource does not support content versions.
+     */
+    default Optional<String> contentVersion() throws IOException {
+        return Optional.empty();
+    }
+
     /**
      * Creates a resource tha treads from the given path.
      */
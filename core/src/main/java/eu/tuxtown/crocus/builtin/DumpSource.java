@@ -4,18 +4,22 @@ import eu.tuxtown.crocus.api.Crocus;
 import eu.tuxtown.crocus.api.calendar.Event;
 import eu.tuxtown.crocus.api.calendar.EventSource;
 import eu.tuxtown.crocus.api.resource.Resource;
+import eu.tuxtown.crocus.impl.dataio.EventDump;
 import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Optional;
 
 @NotNullByDefault
 public class DumpSource implements EventSource {
 
     private final Resource res;
     private final Charset charset;
+    private volatile @Nullable ParsedEvents parsed;
 
     public DumpSource(DumpConfig cfg) {
         this.res = cfg.getSource();
@@ -29,8 +33,20 @@ public class DumpSource implements EventSource {
 
     @Override
     public List<Event> retrieveEvents() throws IOException {
-        try (Reader reader = this.res.openReader(this.charset)) {
-            return Crocus.loadEvents(reader);
+        Optional<String> version = this.res.contentVersion();
+        ParsedEvents parsed = this.parsed;
+        if (parsed != null && version.isPresent() && parsed.version().equals(version.get())) {
+            Crocus.debug("Dump not modified since it was last read.");
+            return parsed.events();
         }
+        List<Event> events;
+        // Binary dumps are detected by their header, the charset only applies to json dumps.
+        try (InputStream in = this.res.openStream()) {
+            events = EventDump.readEvents(in, this.charset);
+        }
+        this.parsed = version.map(v -> new ParsedEvents(v, events)).orElse(null);
+        return events;
     }
+
+    private record ParsedEvents(String version, List<Event> events) {}
 }
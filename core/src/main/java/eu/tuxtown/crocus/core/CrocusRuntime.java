@@ -1,11 +1,16 @@
 package eu.tuxtown.crocus.core;
 
+import eu.tuxtown.crocus.api.Crocus;
 import eu.tuxtown.crocus.api.attribute.Attribute;
 import eu.tuxtown.crocus.core.loader.Services;
+import eu.tuxtown.crocus.impl.attribute.AttributeRegistry;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class CrocusRuntime {
@@ -21,17 +26,19 @@ public class CrocusRuntime {
     private final Path path;
     private final ModuleLayer pluginLayer;
     private final boolean verbose;
-    private int logLayer;
+    private final ThreadLocal<LogContext> logContext;
     @Nullable private Services services;
     @Nullable private Map<String, Attribute<?>> attributes;
+    @Nullable private AttributeRegistry attributeRegistry;
 
     public CrocusRuntime(Path path, ModuleLayer pluginLayer, boolean verbose) {
         this.path = path;
         this.pluginLayer = pluginLayer;
         this.verbose = verbose;
-        this.logLayer = 0;
+        this.logContext = ThreadLocal.withInitial(() -> new LogContext(0, null));
         this.services = null;
         this.attributes = null;
+        this.attributeRegistry = null;
         if (!instance.compareAndSet(null, this)) {
             throw new IllegalStateException("The Crocus runtime has already been created.");
         }
@@ -53,6 +60,7 @@ public class CrocusRuntime {
         if (this.attributes != null || this.services != null) {
             throw new IllegalStateException("Services have already been initialized.");
         }
+        this.attributeRegistry = AttributeRegistry.create(attributes.values());
         this.attributes = Map.copyOf(attributes);
         this.services = services;
     }
@@ -61,14 +69,23 @@ public class CrocusRuntime {
         return this.attributes == null ? Map.of() : this.attributes;
     }
 
+    public AttributeRegistry attributeRegistry() {
+        return this.attributeRegistry == null ? AttributeRegistry.EMPTY : this.attributeRegistry;
+    }
+
     public Services services() {
         return this.services == null ? Services.EMPTY : this.services;
     }
 
     public void log(String message, boolean debug) {
         if (debug && !this.verbose) return;
-        String indent = this.logLayer <= 0 ? "" : "  ".repeat(this.logLayer - 1) + "- ";
-        System.out.println(indent + message);
+        LogContext ctx = this.logContext.get();
+        String indent = ctx.layer <= 0 ? "" : "  ".repeat(ctx.layer - 1) + "- ";
+        if (ctx.section != null) {
+            ctx.section.append(indent + message);
+        } else {
+            System.out.println(indent + message);
+        }
     }
 
     public void logWithCaller(@Nullable Class<?> caller, String message, boolean debug) {
@@ -76,11 +93,99 @@ public class CrocusRuntime {
         this.log(moduleName + ": " + message, debug);
     }
 
+    // The log layer is tracked per thread, so tasks running concurrently don't mess up each others indentation.
     public void increaseLogLayer() {
-        this.logLayer += 1;
+        this.logContext.get().layer += 1;
     }
 
     public void decreaseLogLayer() {
-        this.logLayer = Math.max(0, this.logLayer - 1);
+        LogContext ctx = this.logContext.get();
+        ctx.layer = Math.max(0, ctx.layer - 1);
+    }
+
+    /**
+     * Creates a new log section starting at the current log layer. Everything logged while running code inside the
+     * section is buffered until the section is {@link LogSection#flush() flushed}. This allows running tasks
+     * concurrently while keeping the output of each task together. A section created inside another section is
+     * flushed into that section.
+     */
+    public LogSection newLogSection() {
+        LogContext ctx = this.logContext.get();
+        return new LogSection(ctx.layer, ctx.section);
+    }
+
+    // Captures the log section and log layer of the current thread, so tasks run on other threads log into them.
+    public Crocus.LogScope captureLogScope() {
+        LogContext ctx = this.logContext.get();
+        int layer = ctx.layer;
+        @Nullable LogSection section = ctx.section;
+        return new Crocus.LogScope() {
+
+            @Override
+            public <T> T call(Callable<T> action) throws Exception {
+                LogContext oldCtx = CrocusRuntime.this.logContext.get();
+                CrocusRuntime.this.logContext.set(new LogContext(layer, section));
+                try {
+                    return action.call();
+                } finally {
+                    CrocusRuntime.this.logContext.set(oldCtx);
+                }
+            }
+        };
+    }
+
+    private static final class LogContext {
+
+        private int layer;
+        @Nullable private final LogSection section;
+
+        private LogContext(int layer, @Nullable LogSection section) {
+            this.layer = layer;
+            this.section = section;
+        }
+    }
+
+    public final class LogSection {
+
+        private final int layer;
+        @Nullable private final LogSection parent;
+        private final List<String> lines;
+
+        private LogSection(int layer, @Nullable LogSection parent) {
+            this.layer = layer;
+            this.parent = parent;
+            this.lines = new ArrayList<>();
+        }
+
+        /**
+         * Runs the given action on the current thread, capturing its log output in this section.
+         */
+        public <T> T call(Callable<T> action) throws Exception {
+            LogContext oldCtx = CrocusRuntime.this.logContext.get();
+            CrocusRuntime.this.logContext.set(new LogContext(this.layer, this));
+            try {
+                return action.call();
+            } finally {
+                CrocusRuntime.this.logContext.set(oldCtx);
+            }
+        }
+
+        private synchronized void append(String line) {
+            this.lines.add(line);
+        }
+
+        /**
+         * Prints all buffered output and clears the buffer.
+         */
+        public synchronized void flush() {
+            for (String line : this.lines) {
+                if (this.parent != null) {
+                    this.parent.append(line);
+                } else {
+                    System.out.println(line);
+                }
+            }
+            this.lines.clear();
+        }
     }
 }
@@ -8,6 +8,7 @@ import eu.tuxtown.crocus.core.dsl.ScriptEngine;
 import eu.tuxtown.crocus.core.io.IoMain;
 import eu.tuxtown.crocus.core.loader.PluginLoader;
 import eu.tuxtown.crocus.core.loader.SystemLoader;
+import eu.tuxtown.crocus.core.sync.SyncDaemon;
 import eu.tuxtown.crocus.core.sync.SyncMain;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
@@ -33,6 +34,7 @@ public class Main implements Entrypoint {
         OptionSpec<Path> specPath = options.accepts("path").withRequiredArg().withValuesConvertedBy(new PathConverter()).defaultsTo(Path.of("").toAbsolutePath());
         OptionSpec<Void> specVerbose = options.accepts("verbose");
         OptionSpec<Void> specIO = options.accepts("io");
+        OptionSpec<Void> specDaemon = options.accepts("daemon");
         OptionSet set = options.parse(args);
 
         Path self = set.valueOf(specPath);
@@ -41,6 +43,7 @@ public class Main implements Entrypoint {
         optionsDelegate.accepts("help").forHelp();
         optionsDelegate.accepts("path", "The path, where Crocus stores its data.").withRequiredArg().withValuesConvertedBy(new PathConverter()).defaultsTo(self);
         optionsDelegate.accepts("io", "Enable io mode instead of performing a sync.");
+        optionsDelegate.accepts("daemon", "Keep running and sync calendars periodically.");
         optionsDelegate.accepts("verbose", "Be more verbose.");
 
         Action action;
@@ -54,8 +57,12 @@ public class Main implements Entrypoint {
             action = new Action.Run(config);
         }
 
-        if (set.has(specIO)) {
+        if (set.has(specIO) && set.has(specDaemon)) {
+            throw new IllegalArgumentException("IO mode can't be used in daemon mode.");
+        } else if (set.has(specIO)) {
             IoMain.main(optionsDelegate, action, args);
+        } else if (set.has(specDaemon)) {
+            SyncDaemon.main(optionsDelegate, action, args);
         } else {
             SyncMain.main(optionsDelegate, action, args);
         }
@@ -5,11 +5,14 @@ import eu.tuxtown.crocus.api.calendar.EventFilter;
 import eu.tuxtown.crocus.api.calendar.EventSource;
 import eu.tuxtown.crocus.api.service.CalendarType;
 import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
 import java.util.List;
 
 @NotNullByDefault
 public record ConfiguredEventSource(
         EventSource source,
         List<EventFilter> filterChain,
-        List<ConfiguredService<CalendarType<?, ?>, Calendar>> recipients) {}
+        List<ConfiguredService<CalendarType<?, ?>, Calendar>> recipients,
+        @Nullable Duration interval) {}
@@ -9,11 +9,13 @@ import eu.tuxtown.crocus.api.service.EventFilterType;
 import eu.tuxtown.crocus.api.service.EventSourceType;
 import eu.tuxtown.crocus.core.configuration.ConfiguredEventSource;
 import eu.tuxtown.crocus.core.configuration.ConfiguredService;
+import eu.tuxtown.crocus.core.dsl.meta.metaclass.DslMetaClass;
 import eu.tuxtown.crocus.core.loader.Services;
 import groovy.lang.Closure;
 import org.jetbrains.annotations.NotNullByDefault;
 import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
 import java.util.*;
 
 @NotNullByDefault
@@ -33,6 +35,7 @@ public class DslSources extends ServiceContainer<EventSourceType<?, ?>> {
     @Override
     protected Object addService(Services.Service<EventSourceType<?, ?>> service, String name, Closure<?> config) {
         DslSource dslSource = new DslSource();
+        DslMetaClass.applyTo(dslSource);
         config.setDelegate(dslSource);
         config.setResolveStrategy(Closure.DELEGATE_FIRST);
         config.call();
@@ -46,7 +49,7 @@ public class DslSources extends ServiceContainer<EventSourceType<?, ?>> {
         }
 
         EventSource source = ScriptEngine.configure(service.instance(), Objects.requireNonNullElse(dslSource.cfg, Closure.IDENTITY));
-        this.sources.put(name, new ConfiguredService<>(service, name, new ConfiguredEventSource(source, dslSource.filterChain, dslSource.recipients)));
+        this.sources.put(name, new ConfiguredService<>(service, name, new ConfiguredEventSource(source, dslSource.filterChain, dslSource.recipients, dslSource.interval)));
         return Void.class;
     }
 
@@ -56,12 +59,14 @@ public class DslSources extends ServiceContainer<EventSourceType<?, ?>> {
         private final List<EventFilter> filterChain;
         private final Set<String> recipientIds;
         private final List<ConfiguredService<CalendarType<?, ?>, Calendar>> recipients;
+        private @Nullable Duration interval;
 
         public DslSource() {
             this.cfg = null;
             this.filterChain = new ArrayList<>();
             this.recipientIds = new HashSet<>();
             this.recipients = new ArrayList<>();
+            this.interval = null;
         }
 
         public void configure(Closure<?> cfg) {
@@ -79,5 +84,10 @@ public class DslSources extends ServiceContainer<EventSourceType<?, ?>> {
             if (calendar == null) throw new NoSuchElementException("No such calendar: " + calendarName);
             if (this.recipientIds.add(calendarName)) this.recipients.add(calendar);
         }
+
+        public void interval(Duration interval) {
+            if (interval.isNegative() || interval.isZero()) throw new IllegalArgumentException("Sync interval must be positive: " + interval);
+            this.interval = interval;
+        }
     }
 }
@@ -7,6 +7,8 @@ import eu.tuxtown.crocus.core.Main;
 import eu.tuxtown.crocus.core.configuration.SystemConfiguration;
 import eu.tuxtown.crocus.core.dsl.ScriptEngine;
 import eu.tuxtown.crocus.core.loader.Services;
+import eu.tuxtown.crocus.impl.dataio.Compression;
+import eu.tuxtown.crocus.impl.dataio.EventDump;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -26,6 +28,8 @@ public class IoMain {
     public static void main(OptionParser options, Main.Action action, String[] args) throws IOException {
         OptionSpec<Path> specLoad = options.accepts("load", "Load an event dump from a file.").withRequiredArg().withValuesConvertedBy(new PathConverter());
         OptionSpec<Path> specDump = options.accepts("dump", "Dump the processed events in a file.").withRequiredArg().withValuesConvertedBy(new PathConverter());
+        OptionSpec<Void> specCompactDump = options.accepts("compact-dump", "Write dumps without indentation.");
+        OptionSpec<Void> specBinaryDump = options.accepts("binary-dump", "Write dumps in the binary format. This is the default for files ending in " + EventDump.EXTENSION + " or " + EventDump.EXTENSION + Compression.EXTENSION + ".");
         OptionSpec<String> specSource = options.accepts("source", "Load events from a source in the system configuration.").withRequiredArg();
         OptionSpec<String> specCalendar = options.accepts("calendar", "Load events from the system configuration that would have been put into the given calendar.").withRequiredArg();
         OptionSpec<String> specSink = options.accepts("sink", "Sync events to a system calendar.").withRequiredArg();
@@ -42,7 +46,7 @@ public class IoMain {
             List<IoSink> sinks = new ArrayList<>();
 
             for (Path path : set.valuesOf(specLoad)) sources.add(new IoSource.File(path));
-            for (Path path : set.valuesOf(specDump)) sinks.add(new IoSink.File(path));
+            for (Path path : set.valuesOf(specDump)) sinks.add(new IoSink.File(path, set.has(specCompactDump), set.has(specBinaryDump) || Compression.baseName(path.getFileName().toString()).endsWith(EventDump.EXTENSION)));
             for (String source : set.valuesOf(specSource)) sources.add(new IoSource.SystemSource(source));
             for (String calendar : set.valuesOf(specCalendar)) sources.add(new IoSource.SystemCalendar(calendar));
             for (String sink : set.valuesOf(specSink)) sinks.add(new IoSink.SystemSink(sink, false));
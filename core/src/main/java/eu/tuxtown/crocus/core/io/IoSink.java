@@ -9,15 +9,11 @@ import eu.tuxtown.crocus.core.CrocusRuntime;
 import eu.tuxtown.crocus.core.configuration.ConfiguredService;
 import eu.tuxtown.crocus.core.configuration.SystemConfiguration;
 import eu.tuxtown.crocus.core.sync.CalendarUpdater;
-import eu.tuxtown.crocus.impl.json.EventJson;
+import eu.tuxtown.crocus.impl.dataio.EventDump;
 import org.jetbrains.annotations.NotNullByDefault;
 
 import java.io.IOException;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 @NotNullByDefault
@@ -26,7 +22,10 @@ public sealed interface IoSink permits IoSink.File, IoSink.SystemSink {
     default void validate(SystemConfiguration systemConfig) {}
     void push(SystemConfiguration systemConfig, Path calendarsPath, Map<EventKey, Event> events) throws IOException;
 
-    record File(Path path) implements IoSink {
+    /**
+     * Writes events to a dump file. Binary dumps ignore {@code compact}. Files ending in {@code .gz} are compressed.
+     */
+    record File(Path path, boolean compact, boolean binary) implements IoSink {
 
         @Override
         public void push(SystemConfiguration systemConfig, Path calendarsPath, Map<EventKey, Event> events) throws IOException {
@@ -40,9 +39,7 @@ public sealed interface IoSink permits IoSink.File, IoSink.SystemSink {
                     throw new IllegalStateException("Can't dump events to file: Duplicate event id in different namespaces: " + event.id());
                 }
             }
-            try (Writer writer = Files.newBufferedWriter(this.path(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                EventJson.writeEvents(writer, eventList);
-            }
+            EventDump.writeFile(this.path(), eventList, this.binary(), this.compact());
         }
     }
 
@@ -6,11 +6,11 @@ import eu.tuxtown.crocus.api.calendar.EventKey;
 import eu.tuxtown.crocus.core.configuration.ConfiguredService;
 import eu.tuxtown.crocus.core.configuration.SystemConfiguration;
 import eu.tuxtown.crocus.core.sync.EventCollector;
-import eu.tuxtown.crocus.impl.json.EventJson;
+import eu.tuxtown.crocus.impl.dataio.EventDump;
 import org.jetbrains.annotations.NotNullByDefault;
 
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,11 +33,16 @@ public sealed interface IoSource permits IoSource.File, IoSource.SystemSource, I
         @Override
         public Map<EventKey, Event> fetch(SystemConfiguration systemConfig, EventCollector.EventCollection events) throws IOException {
             Crocus.info("Reading events from " + this.path().toAbsolutePath().normalize());
-            try (Reader reader = Files.newBufferedReader(this.path(), StandardCharsets.UTF_8)) {
-                return EventJson.readEvents(reader).stream()
-                        .map(event -> Map.entry(new EventKey("core", "file", event.id()), event))
-                        .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+            Map<EventKey, Event> events = new HashMap<>();
+            try (InputStream in = Files.newInputStream(this.path())) {
+                EventDump.readEvents(in, StandardCharsets.UTF_8, event -> {
+                    EventKey key = new EventKey("core", "file", event.id());
+                    if (events.putIfAbsent(key, event) != null) {
+                        throw new IllegalStateException("Duplicate key " + key);
+                    }
+                });
             }
+            return Collections.unmodifiableMap(events);
         }
     }
 
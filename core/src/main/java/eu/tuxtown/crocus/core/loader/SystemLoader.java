@@ -24,31 +24,49 @@ public class SystemLoader {
         Crocus.info("Loading attributes");
         Map<String, Attribute<?>> attributes = loadAttributes(runtime);
 
-        Crocus.info("Loading system secrets");
-        Properties secrets;
+        Properties secrets = loadSystemSecrets(runtime);
+        Path systemConfigPath = systemConfigPath(runtime);
+
+        Crocus.info("Loading system configuration");
+        Services services;
         CrocusRuntime.get().increaseLogLayer();
         try {
-            secrets = loadSecrets(runtime);
+            services = new Services(runtime.pluginLayer());
+            runtime.initialize(attributes, services);
         } finally {
             CrocusRuntime.get().decreaseLogLayer();
         }
 
-        Path systemConfigPath = runtime.path().resolve("config.groovy");
-        if (!Files.isRegularFile(systemConfigPath)) {
-            throw new FileNotFoundException(systemConfigPath.getFileName() + " not found.");
-        }
+        return ScriptEngine.loadConfig(systemConfigPath, services, secrets);
+    }
 
+    /**
+     * Loads the system configuration again on an already initialized runtime. Plugins, attributes and services are
+     * kept, only secrets and the configuration file are read again.
+     */
+    public static SystemConfiguration reload(CrocusRuntime runtime) throws IOException {
+        Properties secrets = loadSystemSecrets(runtime);
+        Path systemConfigPath = systemConfigPath(runtime);
         Crocus.info("Loading system configuration");
-        Services services;
+        return ScriptEngine.loadConfig(systemConfigPath, runtime.services(), secrets);
+    }
+
+    private static Properties loadSystemSecrets(CrocusRuntime runtime) throws IOException {
+        Crocus.info("Loading system secrets");
         CrocusRuntime.get().increaseLogLayer();
         try {
-            services = new Services(runtime.pluginLayer());
-            runtime.initialize(attributes, services);
+            return loadSecrets(runtime);
         } finally {
             CrocusRuntime.get().decreaseLogLayer();
         }
+    }
 
-        return ScriptEngine.loadConfig(systemConfigPath, services, secrets);
+    private static Path systemConfigPath(CrocusRuntime runtime) throws IOException {
+        Path systemConfigPath = runtime.path().resolve("config.groovy");
+        if (!Files.isRegularFile(systemConfigPath)) {
+            throw new FileNotFoundException(systemConfigPath.getFileName() + " not found.");
+        }
+        return systemConfigPath;
     }
 
     private static Map<String, Attribute<?>> loadAttributes(CrocusRuntime runtime) {
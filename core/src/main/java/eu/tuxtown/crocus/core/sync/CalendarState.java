@@ -0,0 +1,198 @@
+package eu.tuxtown.crocus.core.sync;
+
+import eu.tuxtown.crocus.api.Crocus;
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.api.calendar.EventKey;
+import eu.tuxtown.crocus.impl.dataio.BinaryIO;
+import eu.tuxtown.crocus.impl.dataio.Compression;
+import eu.tuxtown.crocus.impl.dataio.EventFingerprint;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The state of a calendar, as it was left by the last sync. Instead of the events themselves, only their
+ * {@link EventFingerprint fingerprints} are kept. These are enough to detect which events have changed.
+ *
+ * <p>The state is stored gzip compressed in a versioned binary format:
+ * <ul>
+ *     <li>A header consisting of the {@link #MAGIC magic number} and the format version.</li>
+ *     <li>A string table holding all plugin ids and source names. Event keys reference these by index.</li>
+ *     <li>The internal ids of all events, that need to be deleted.</li>
+ *     <li>One length-prefixed record per event key holding its fingerprint and internal id (both optional).</li>
+ * </ul>
+ * New fields may be appended to the end of a record without changing the format version, readers skip over the data
+ * they don't know. Incompatible changes increase the format version. Before the binary format existed, the state was
+ * written with Java serialization. Such files are still read and rewritten in the binary format on the next save.
+ * Uncompressed files of either format are read as well.
+ */
+@NotNullByDefault
+public record CalendarState(Set<String> eventsToDelete, Map<EventKey, String> idMap, Map<EventKey, EventFingerprint> fingerprints) {
+
+    public static final CalendarState EMPTY = new CalendarState(Set.of(), Map.of(), Map.of());
+
+    public static final int MAGIC = 0x43524F43; // CROC
+    public static final int VERSION = 1;
+
+    private static final int LEGACY_MAGIC = 0xACED; // Java serialization stream magic
+
+    private static final int HAS_FINGERPRINT = 1;
+    private static final int HAS_ID = 2;
+
+    public static CalendarState load(Path path) throws IOException {
+        if (!Files.exists(path)) return EMPTY;
+        byte[] data = Compression.decompress(Files.readAllBytes(path));
+        if (data.length >= 2 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == LEGACY_MAGIC) {
+            Crocus.info("Migrating calendar state from legacy format.");
+            return loadLegacy(path, data);
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != MAGIC) throw new IOException("Not a calendar state file: " + path);
+            int version = in.readUnsignedShort();
+            return switch (version) {
+                case 1 -> read(in);
+                default -> throw new IOException("Unsupported calendar state version " + version + " in " + path);
+            };
+        } catch (EOFException e) {
+            throw new IOException("Truncated calendar state file: " + path, e);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        // First save to byte array, so we catch any serialisation exception before accessing the file system
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        this.write(out);
+        out.close();
+        Files.write(path, Compression.compress(bytes.toByteArray()), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        Set<EventKey> keys = new HashSet<>(this.idMap().keySet());
+        keys.addAll(this.fingerprints().keySet());
+
+        List<String> strings = keys.stream()
+                .flatMap(key -> Stream.of(key.pluginId(), key.sourceName()))
+                .distinct().sorted().toList();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        BinaryIO.writeVarInt(out, strings.size());
+        for (String string : strings) {
+            stringIndex.put(string, stringIndex.size());
+            BinaryIO.writeString(out, string);
+        }
+
+        List<String> eventsToDelete = this.eventsToDelete().stream().sorted().toList();
+        BinaryIO.writeVarInt(out, eventsToDelete.size());
+        for (String internalId : eventsToDelete) {
+            BinaryIO.writeString(out, internalId);
+        }
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(recordBytes);
+
+        BinaryIO.writeVarInt(out, keys.size());
+        for (EventKey key : keys) {
+            EventFingerprint fingerprint = this.fingerprints().get(key);
+            String id = this.idMap().get(key);
+            recordBytes.reset();
+            writeKey(record, stringIndex, key);
+            record.writeByte((fingerprint != null ? HAS_FINGERPRINT : 0) | (id != null ? HAS_ID : 0));
+            if (fingerprint != null) fingerprint.write(record);
+            if (id != null) BinaryIO.writeString(record, id);
+            writeRecord(out, recordBytes);
+        }
+    }
+
+    private static CalendarState read(DataInputStream in) throws IOException {
+        String[] strings = readStrings(in);
+        Set<String> eventsToDelete = readEventsToDelete(in);
+
+        int keyCount = BinaryIO.readVarInt(in);
+        Map<EventKey, String> idMap = HashMap.newHashMap(keyCount);
+        Map<EventKey, EventFingerprint> fingerprints = HashMap.newHashMap(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            DataInputStream record = readRecord(in);
+            EventKey key = readKey(record, strings);
+            int flags = record.readUnsignedByte();
+            if ((flags & HAS_FINGERPRINT) != 0) fingerprints.put(key, EventFingerprint.read(record));
+            if ((flags & HAS_ID) != 0) idMap.put(key, BinaryIO.readString(record));
+        }
+
+        return new CalendarState(Set.copyOf(eventsToDelete), Map.copyOf(idMap), Map.copyOf(fingerprints));
+    }
+
+    private static String[] readStrings(DataInput in) throws IOException {
+        int stringCount = BinaryIO.readVarInt(in);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = BinaryIO.readString(in);
+        }
+        return strings;
+    }
+
+    private static Set<String> readEventsToDelete(DataInput in) throws IOException {
+        int deleteCount = BinaryIO.readVarInt(in);
+        Set<String> eventsToDelete = HashSet.newHashSet(deleteCount);
+        for (int i = 0; i < deleteCount; i++) {
+            eventsToDelete.add(BinaryIO.readString(in));
+        }
+        return eventsToDelete;
+    }
+
+    private static void writeKey(DataOutput out, Map<String, Integer> stringIndex, EventKey key) throws IOException {
+        BinaryIO.writeVarInt(out, stringIndex.get(key.pluginId()));
+        BinaryIO.writeVarInt(out, stringIndex.get(key.sourceName()));
+        BinaryIO.writeString(out, key.eventId());
+    }
+
+    private static EventKey readKey(DataInput in, String[] strings) throws IOException {
+        int pluginIdx = BinaryIO.readVarInt(in);
+        int sourceIdx = BinaryIO.readVarInt(in);
+        if (pluginIdx >= strings.length || sourceIdx >= strings.length) throw new IOException("Invalid string reference in calendar state.");
+        return new EventKey(strings[pluginIdx], strings[sourceIdx], BinaryIO.readString(in));
+    }
+
+    private static void writeRecord(DataOutputStream out, ByteArrayOutputStream record) throws IOException {
+        BinaryIO.writeVarInt(out, record.size());
+        record.writeTo(out);
+    }
+
+    private static DataInputStream readRecord(DataInput in) throws IOException {
+        byte[] record = new byte[BinaryIO.readVarInt(in)];
+        in.readFully(record);
+        return new DataInputStream(new ByteArrayInputStream(record));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CalendarState loadLegacy(Path path, byte[] data) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            Set<String> allKeys = new HashSet<>();
+            int allKeysLen = in.readInt();
+            for (int i = 0; i < allKeysLen; i++) {
+                allKeys.add(in.readUTF());
+            }
+
+            try {
+                Set<String> eventsToDelete = (Set<String>) in.readObject();
+                Map<EventKey, String> idMap = (Map<EventKey, String>) in.readObject();
+                Map<EventKey, Event> allEvents = (Map<EventKey, Event>) in.readObject();
+                Map<EventKey, EventFingerprint> fingerprints = HashMap.newHashMap(allEvents.size());
+                allEvents.forEach((key, event) -> fingerprints.put(key, EventFingerprint.of(event)));
+                return new CalendarState(Set.copyOf(eventsToDelete), Map.copyOf(idMap), Map.copyOf(fingerprints));
+            } catch (InvalidClassException e) {
+                // Some serial version uid has changed, delete everything and start over
+                return new CalendarState(Set.copyOf(allKeys), Map.of(), Map.of());
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to load stored data from " + path, e);
+        }
+    }
+}
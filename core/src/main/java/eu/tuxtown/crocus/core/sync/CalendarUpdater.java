@@ -7,6 +7,7 @@ import eu.tuxtown.crocus.api.calendar.EventKey;
 import eu.tuxtown.crocus.api.service.CalendarType;
 import eu.tuxtown.crocus.core.CrocusRuntime;
 import eu.tuxtown.crocus.core.configuration.ConfiguredService;
+import eu.tuxtown.crocus.impl.dataio.EventFingerprint;
 import org.jetbrains.annotations.NotNullByDefault;
 import org.jetbrains.annotations.Nullable;
 
@@ -14,7 +15,6 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -24,11 +24,20 @@ import java.util.stream.Stream;
 public class CalendarUpdater {
 
     public static void updateCalendar(Path calendarsPath, ConfiguredService<CalendarType<?, ?>, Calendar> calendar, Map<EventKey, Event> collectedEvents, boolean noIncremental) throws IOException {
+        updateCalendar(calendarsPath, calendar, collectedEvents, Map.of(), noIncremental);
+    }
+
+    /**
+     * Updates a calendar. {@code knownFingerprints} may contain precomputed fingerprints for some of the collected
+     * events, fingerprints for all other events are computed here.
+     */
+    public static void updateCalendar(Path calendarsPath, ConfiguredService<CalendarType<?, ?>, Calendar> calendar, Map<EventKey, Event> collectedEvents, Map<EventKey, EventFingerprint> knownFingerprints, boolean noIncremental) throws IOException {
         if (!Files.exists(calendarsPath)) Files.createDirectory(calendarsPath);
         Path path = calendarsPath.resolve(calendar.key().moduleName() + "-" + savePathPart(calendar.id()) + ".dat");
         Path pathBackup = calendarsPath.resolve(calendar.key().moduleName() + "-" + savePathPart(calendar.id()) + ".bak");
+        Path pathJournal = SyncJournal.journalPath(path);
 
-        StoredData data;
+        CalendarState data;
         if (noIncremental) {
             Crocus.info("Performing non-incremental update: Clearing calendar.");
             CrocusRuntime.get().increaseLogLayer();
@@ -39,7 +48,7 @@ public class CalendarUpdater {
                 } else {
                     Crocus.info("Done.");
                 }
-                data = StoredData.EMPTY;
+                data = CalendarState.EMPTY;
             } catch (Exception e) {
                 try {
                     if (Files.isRegularFile(path)) {
@@ -52,9 +61,12 @@ public class CalendarUpdater {
             } finally {
                 CrocusRuntime.get().decreaseLogLayer();
             }
+            // The calendar is empty now, an interrupted update must not be replayed onto the old state.
+            data.save(path);
         } else {
+            CalendarState storedData;
             try {
-                data = StoredData.load(path);
+                storedData = CalendarState.load(path);
             } catch (IOException e) {
                 try {
                     if (Files.isRegularFile(path)) {
@@ -65,16 +77,21 @@ public class CalendarUpdater {
                 }
                 throw e;
             }
+            // Repair the state, if the last update was interrupted before it could write a failure state.
+            data = SyncJournal.recover(pathJournal, path, storedData);
+            if (data != storedData) data.save(path);
+            calendar.value().reconcile();
         }
 
         Map<EventKey, String> updatingIdMap = new HashMap<>(data.idMap());
+        SyncJournal journal = SyncJournal.create(pathJournal, path);
 
         // Register a shutdown hook that saves a failure state if Crocus is interrupted while updating the calendar.
         AtomicBoolean successful = new AtomicBoolean(false);
         Thread shutdownHook = new Thread(() -> {
             if (!successful.get()) {
                 try {
-                    trySaveFailureState(null, path, data, updatingIdMap);
+                    trySaveFailureState(null, path, data, journal);
                     System.err.println("Interrupted while updating calendar " + calendar.id() + ". Failure state written.");
                 } catch (Exception e) {
                     System.err.println("Interrupted while updating calendar " + calendar.id() + ". Failure state could not be written. Calendar is probably broken.");
@@ -89,6 +106,7 @@ public class CalendarUpdater {
                 CrocusRuntime.get().increaseLogLayer();
                 try {
                     calendar.value().deleteEvents(data.eventsToDelete());
+                    journal.deleted(data.eventsToDelete());
                     updatingIdMap.values().removeIf(s -> data.eventsToDelete().contains(s));
                 } finally {
                     CrocusRuntime.get().decreaseLogLayer();
@@ -96,25 +114,34 @@ public class CalendarUpdater {
             }
 
             Map<EventKey, Event> changedEvents = new HashMap<>();
+            Map<EventKey, EventFingerprint> collectedFingerprints = HashMap.newHashMap(collectedEvents.size());
 
             for (Map.Entry<EventKey, Event> entry : collectedEvents.entrySet()) {
                 EventKey key = entry.getKey();
                 Event event = entry.getValue();
+                EventFingerprint fingerprint = knownFingerprints.get(key);
+                if (fingerprint == null) fingerprint = EventFingerprint.of(event);
+                collectedFingerprints.put(key, fingerprint);
 
-                if (!data.allEvents().containsKey(key) || !Objects.equals(data.allEvents().get(key), event)) {
+                if (!fingerprint.equals(data.fingerprints().get(key))) {
                     changedEvents.put(key, event);
                 }
             }
 
-            Set<EventKey> deletedEvents = data.allEvents().keySet().stream().filter(key -> !collectedEvents.containsKey(key)).collect(Collectors.toUnmodifiableSet());
+            // A key may have an id but no fingerprint, if its stored state was unreadable or an interrupted update was
+            // replayed. Its event must still be deleted when the key is gone.
+            Set<EventKey> deletedEvents = Stream.concat(data.fingerprints().keySet().stream(), updatingIdMap.keySet().stream())
+                    .filter(key -> !collectedEvents.containsKey(key))
+                    .collect(Collectors.toUnmodifiableSet());
 
             if (!data.eventsToDelete().isEmpty() || !changedEvents.isEmpty() || !deletedEvents.isEmpty()) {
                 Crocus.info("Updating " + changedEvents.size() + " events (out of " + collectedEvents.size() + " total). Deleted events: " + deletedEvents.size());
                 CrocusRuntime.get().increaseLogLayer();
                 try {
                     Calendar.CalendarData calendarData = new Calendar.CalendarData(Collections.unmodifiableMap(changedEvents), deletedEvents);
-                    Calendar.CalendarIds calendarIds = new CalendarIdsImpl(updatingIdMap);
+                    Calendar.CalendarIds calendarIds = new CalendarIdsImpl(updatingIdMap, journal);
 
+                    journal.begin(changedEvents.keySet(), deletedEvents);
                     calendar.value().updateEvents(calendarData, calendarIds);
 
                     // Need to remove deleted events from idMap after update as the update methods needs them in idMap to query the id for deletion.
@@ -126,41 +153,30 @@ public class CalendarUpdater {
                 Crocus.info("Calendar is up to date. (" + collectedEvents.size() + " total events)");
             }
 
-            new StoredData(Set.of(), Map.copyOf(updatingIdMap), collectedEvents).save(path);
+            new CalendarState(Set.of(), Map.copyOf(updatingIdMap), Map.copyOf(collectedFingerprints)).save(path);
             successful.set(true);
+            journal.delete();
         } catch (Exception e) {
-            // Calendar update failed, we don't know the state of the calendar.
-            // Mark all events for deletion next time.
-            trySaveFailureState(e, path, data, updatingIdMap);
+            // Calendar update failed, only the changes confirmed in the journal are known.
+            trySaveFailureState(e, path, data, journal);
             throw e;
         } finally {
             Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            journal.close();
         }
     }
 
-    private static void trySaveFailureState(@Nullable Exception exc, Path path, StoredData oldData, Map<EventKey, String> updatingIdMap) throws IOException {
-        // Calendar update failed, we don't know the state of the calendar.
-        // Mark all events for deletion next time.
-        try {
-            Files.deleteIfExists(path);
-        } catch (Exception x) {
-            if (exc != null) {
-                exc.addSuppressed(x);
-            } else {
-                throw new IOException("Failed to delete old calendar state file.");
-            }
-        }
+    private static void trySaveFailureState(@Nullable Exception exc, Path path, CalendarState oldData, SyncJournal journal) throws IOException {
+        // Calendar update failed, we don't know the state of the events that were being updated.
+        // Replay the journal, so they are repaired next time.
         try {
-            // Include old idMap entries as well as new idMap entries as we don't know what has already been processed.
-            new StoredData(Stream.concat(
-                    Stream.concat(oldData.eventsToDelete().stream(), oldData.idMap().values().stream()),
-                    updatingIdMap.values().stream()
-            ).collect(Collectors.toUnmodifiableSet()), Map.of(), Map.of()).save(path);
+            journal.recover(oldData).save(path);
+            journal.delete();
         } catch (Exception x) {
             if (exc != null) {
                 exc.addSuppressed(x);
             } else {
-                throw new IOException("Failed to save failure state file.");
+                throw new IOException("Failed to save failure state file.", x);
             }
         }
     }
@@ -177,70 +193,37 @@ public class CalendarUpdater {
         return sb.toString();
     }
 
-    private record StoredData(Set<String> eventsToDelete, Map<EventKey, String> idMap, Map<EventKey, Event> allEvents) {
-
-        public static final StoredData EMPTY = new StoredData(Set.of(), Map.of(), Map.of());
-
-        @SuppressWarnings("unchecked")
-        public static StoredData load(Path path) throws IOException {
-            if (!Files.exists(path)) return EMPTY;
-            try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(path))) {
-                Set<String> allKeys = new HashSet<>();
-                int allKeysLen = in.readInt();
-                for (int i = 0; i < allKeysLen; i++) {
-                    allKeys.add(in.readUTF());
-                }
-
-                try {
-                    Set<String> eventsToDelete = (Set<String>) in.readObject();
-                    Map<EventKey, String> idMap = (Map<EventKey, String>) in.readObject();
-                    Map<EventKey, Event> allEvents = (Map<EventKey, Event>) in.readObject();
-                    return new StoredData(Set.copyOf(eventsToDelete), Map.copyOf(idMap), Map.copyOf(allEvents));
-                } catch (InvalidClassException e) {
-                    // Some serial version uid has changed, delete everything and start over
-                    return new StoredData(Set.copyOf(allKeys), Map.of(), Map.of());
-                }
-            } catch (ClassNotFoundException e) {
-                throw new IOException("Failed to load stored data from " + path, e);
-            }
-        }
-
-        public void save(Path path) throws IOException {
-            // First save to byte array, so we catch any serialisation exception before accessing the file system
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ObjectOutputStream objectOut = new ObjectOutputStream(out);
-
-            // Write all currently existing event keys (as internal id) without object serialisation, so they can be used as fallback if
-            // a serial version uid changes somewhere to get the calendar into a known state (by deleting all events)
-            Set<String> allKeys = Stream.concat(this.eventsToDelete().stream(), this.idMap().values().stream()).collect(Collectors.toUnmodifiableSet());
-            objectOut.writeInt(allKeys.size());
-            for (String internalId : allKeys) {
-                objectOut.writeUTF(internalId);
-            }
-
-            objectOut.writeObject(Set.copyOf(this.eventsToDelete()));
-            objectOut.writeObject(Map.copyOf(this.idMap()));
-            objectOut.writeObject(Map.copyOf(this.allEvents()));
-            objectOut.close();
-            Files.write(path, out.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        }
-    }
-
-    private record CalendarIdsImpl(Map<EventKey, String> idMap) implements Calendar.CalendarIds {
+    // Calendars may update ids from multiple threads while sending requests concurrently.
+    private record CalendarIdsImpl(Map<EventKey, String> idMap, SyncJournal journal) implements Calendar.CalendarIds {
 
         @Override
         @Nullable
-        public String getId(EventKey key) {
+        public synchronized String getId(EventKey key) {
             return this.idMap().get(key);
         }
 
         @Override
-        public void setId(EventKey key, String id) {
+        public synchronized void setId(EventKey key, String id) {
             Objects.requireNonNull(key);
             if (this.idMap().containsKey(key)) {
                 throw new IllegalStateException("Can't add internal id for known object: " + key + "\n  Known id associated with this object is " + this.idMap().get(key) + "\n  Newly requested id is " + id);
             }
             this.idMap().put(key, Objects.requireNonNull(id));
+            try {
+                this.journal().setId(key, id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write sync journal", e);
+            }
+        }
+
+        @Override
+        public synchronized void removeId(EventKey key) {
+            this.idMap().remove(Objects.requireNonNull(key));
+            try {
+                this.journal().removeId(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write sync journal", e);
+            }
         }
     }
 }
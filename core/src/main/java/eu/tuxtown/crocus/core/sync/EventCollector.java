@@ -10,59 +10,231 @@ import eu.tuxtown.crocus.api.service.EventSourceType;
 import eu.tuxtown.crocus.core.CrocusRuntime;
 import eu.tuxtown.crocus.core.configuration.ConfiguredEventSource;
 import eu.tuxtown.crocus.core.configuration.ConfiguredService;
+import eu.tuxtown.crocus.impl.dataio.EventFingerprint;
 import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 @NotNullByDefault
 public class EventCollector {
 
     public static EventCollection collectEvents(Map<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>> sources) throws IOException {
+        return collectEvents(sources, 1);
+    }
+
+    public static EventCollection collectEvents(Map<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>> sources, int parallelism) throws IOException {
+        return collectEvents(sources, parallelism, null);
+    }
+
+    /**
+     * Collects the events from all given sources. If {@code parallelism} is greater than one, up to that many sources
+     * are queried concurrently. The result (including the errors on duplicate events) is the same as if all sources
+     * had been queried sequentially in the order of their names. If a {@link SourceCache} is given, the filter chain
+     * is skipped for sources that produced the same events as in the last run.
+     */
+    public static EventCollection collectEvents(Map<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>> sources, int parallelism, @Nullable SourceCache cache) throws IOException {
+        List<Map.Entry<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>>> sortedSources = sources.entrySet().stream().sorted(Map.Entry.comparingByKey()).toList();
         Map<ConfiguredService.Identifier, Map<EventKey, Event>> mapByCalendar = new HashMap<>();
         Map<String, Map<EventKey, Event>> mapBySource = new HashMap<>();
-        for (Map.Entry<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>> mapEntry : sources.entrySet().stream().sorted(Map.Entry.comparingByKey()).toList()) {
-            Crocus.info("Querying source " + mapEntry.getKey());
-            CrocusRuntime.get().increaseLogLayer();
-            try {
-                ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource> entry = mapEntry.getValue();
-
-                // Pre-create the by-source entry so sources with 0 events get an entry as well.
-                Map<EventKey, Event> currentSourceEventMap = mapBySource.computeIfAbsent(mapEntry.getKey(), k -> new HashMap<>());
-
-                int total = 0;
-                int filtered = 0;
-                eventLoop:
-                for (Event event : entry.value().source().retrieveEvents()) {
-                    Event filteredEvent = event;
-                    EventKey key = new EventKey(entry.key().moduleName(), entry.id(), event.id());
-                    total += 1;
-                    for (EventFilter filter : entry.value().filterChain()) {
-                        if ((filteredEvent = filter.filter(key, filteredEvent)) == null) continue eventLoop;
-                        if (!Objects.equals(filteredEvent.id(), event.id()))
-                            throw new IllegalStateException("Filter modified event id. This is not allowed.");
+        Map<EventKey, EventFingerprint> fingerprints = new HashMap<>();
+        if (parallelism <= 1 || sortedSources.size() <= 1) {
+            for (Map.Entry<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>> mapEntry : sortedSources) {
+                mergeResult(mapByCalendar, mapBySource, fingerprints, querySource(mapEntry.getKey(), mapEntry.getValue(), cache));
+            }
+        } else {
+            collectConcurrently(sortedSources, parallelism, cache, mapByCalendar, mapBySource, fingerprints);
+        }
+        return new EventCollection(
+                mapByCalendar.entrySet().stream().map(entry -> Map.entry(entry.getKey(), Collections.unmodifiableMap(entry.getValue()))).collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)),
+                mapBySource.entrySet().stream().map(entry -> Map.entry(entry.getKey(), entry.getValue().values().stream().sorted(Comparator.comparing(Event::id)).toList())).collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)),
+                Map.copyOf(fingerprints)
+        );
+    }
+
+    private static void collectConcurrently(List<Map.Entry<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>>> sortedSources, int parallelism, @Nullable SourceCache cache, Map<ConfiguredService.Identifier, Map<EventKey, Event>> mapByCalendar, Map<String, Map<EventKey, Event>> mapBySource, Map<EventKey, EventFingerprint> fingerprints) throws IOException {
+        record Task(CrocusRuntime.LogSection log, Future<SourceResult> result) {}
+        // Sources mostly wait on network I/O, so virtual threads are a good fit. The semaphore limits the number of
+        // sources that are queried at the same time.
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Task> tasks = new ArrayList<>(sortedSources.size());
+            for (Map.Entry<String, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource>> mapEntry : sortedSources) {
+                CrocusRuntime.LogSection log = CrocusRuntime.get().newLogSection();
+                tasks.add(new Task(log, executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return log.call(() -> querySource(mapEntry.getKey(), mapEntry.getValue(), cache));
+                    } finally {
+                        permits.release();
                     }
-                    filtered += 1;
-                    if (currentSourceEventMap.put(key, filteredEvent) != null) {
-                        throw new IllegalStateException("Duplicate event key detected: " + event.id() + " (in source " + mapEntry.getKey() + ")");
+                })));
+            }
+            // Merge in source order, so output and errors match a sequential run.
+            for (Task task : tasks) {
+                SourceResult result;
+                try {
+                    result = task.result().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while collecting events.", e);
+                } catch (ExecutionException e) {
+                    switch (e.getCause()) {
+                        case IOException ioex -> throw ioex;
+                        case RuntimeException rex -> throw rex;
+                        case Error err -> throw err;
+                        case null, default -> throw new RuntimeException(e.getCause());
+                    }
+                } finally {
+                    task.log().flush();
+                }
+                mergeResult(mapByCalendar, mapBySource, fingerprints, result);
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.close();
+        }
+    }
+
+    // Queries and filters a single source. Does not touch any shared state, so it can run concurrently to other sources.
+    private static SourceResult querySource(String name, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource> entry, @Nullable SourceCache cache) {
+        if (cache != null) return querySourceCached(name, entry, cache);
+        Crocus.info("Querying source " + name);
+        CrocusRuntime.get().increaseLogLayer();
+        // Keep insertion order, so events are merged in the order, they were retrieved from the source.
+        Map<EventKey, Event> events = new LinkedHashMap<>();
+        try {
+            int[] total = new int[]{ 0 };
+            // Filter each event as it arrives, so the unfiltered events don't need to be kept in memory.
+            entry.value().source().retrieveEvents(event -> {
+                EventKey key = new EventKey(entry.key().moduleName(), entry.id(), event.id());
+                total[0] += 1;
+                @Nullable Event filteredEvent;
+                try {
+                    filteredEvent = filterEvent(entry.value(), key, event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (filteredEvent != null && events.putIfAbsent(key, filteredEvent) != null) {
+                    throw new IllegalStateException("Duplicate event key detected: " + event.id() + " (in source " + name + ")");
+                }
+            });
+            Crocus.info("Collected " + events.size() + " events." + (entry.value().filterChain().isEmpty() ? "" : " (" + total[0] + " before filtering)"));
+            return new SourceResult(name, entry, events, Map.of(), null);
+        } catch (UncheckedIOException e) {
+            // Thrown by a filter from within the event consumer.
+            return new SourceResult(name, entry, events, Map.of(), e.getCause());
+        } catch (IOException | RuntimeException e) {
+            // Events collected before the failure are still merged, so errors are raised in the same order as in a sequential run.
+            return new SourceResult(name, entry, events, Map.of(), e);
+        } finally {
+            CrocusRuntime.get().decreaseLogLayer();
+        }
+    }
+
+    // Like querySource, but the unfiltered events are kept to look up the filtered result in the cache.
+    private static SourceResult querySourceCached(String name, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource> entry, SourceCache cache) {
+        Crocus.info("Querying source " + name);
+        CrocusRuntime.get().increaseLogLayer();
+        List<Event> rawEvents = new ArrayList<>();
+        Map<EventKey, Event> events = new LinkedHashMap<>();
+        try {
+            @Nullable Exception failure = null;
+            try {
+                entry.value().source().retrieveEvents(rawEvents::add);
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+
+            if (failure == null) {
+                SourceCache.Key cacheKey = cache.key(name, rawEvents, entry.value().filterChain());
+                SourceCache.Result cached = cache.lookup(cacheKey);
+                if (cached != null) {
+                    Map<EventKey, EventFingerprint> fingerprints = HashMap.newHashMap(cached.events().size());
+                    for (int i = 0; i < cached.events().size(); i++) {
+                        Event event = cached.events().get(i);
+                        EventKey key = new EventKey(entry.key().moduleName(), entry.id(), event.id());
+                        events.put(key, event);
+                        fingerprints.put(key, cached.fingerprints().get(i));
                     }
-                    for (ConfiguredService<CalendarType<?, ?>, Calendar> recipient : entry.value().recipients()) {
-                        if (mapByCalendar.computeIfAbsent(recipient.identifier(), k -> new HashMap<>()).put(key, filteredEvent) != null) {
-                            throw new IllegalStateException("Duplicate event key detected: " + event.id() + " (in calendar " + recipient.id() + ")");
-                        }
+                    Crocus.info("Collected " + events.size() + " events. (source unchanged, filtered events reused)");
+                    return new SourceResult(name, entry, events, fingerprints, null);
+                }
+
+                filterEvents(name, entry, rawEvents, events);
+                Map<EventKey, EventFingerprint> fingerprints = HashMap.newHashMap(events.size());
+                try {
+                    List<EventFingerprint> storedFingerprints = cache.store(cacheKey, events.values());
+                    int idx = 0;
+                    for (EventKey key : events.keySet()) {
+                        fingerprints.put(key, storedFingerprints.get(idx++));
                     }
+                } catch (IOException e) {
+                    Crocus.debug("Failed to write source cache: " + e.getMessage());
                 }
-                Crocus.info("Collected " + filtered + " events." + (entry.value().filterChain().isEmpty() ? "" : " (" + total + " before filtering)"));
-            } finally {
-                CrocusRuntime.get().decreaseLogLayer();
+                Crocus.info("Collected " + events.size() + " events." + (entry.value().filterChain().isEmpty() ? "" : " (" + rawEvents.size() + " before filtering)"));
+                return new SourceResult(name, entry, events, fingerprints, null);
+            } else {
+                // Failed sources are never cached, the events retrieved so far are merged as usual.
+                filterEvents(name, entry, rawEvents, events);
+                return new SourceResult(name, entry, events, Map.of(), failure);
             }
+        } catch (IOException | RuntimeException e) {
+            return new SourceResult(name, entry, events, Map.of(), e);
+        } finally {
+            CrocusRuntime.get().decreaseLogLayer();
         }
-        return new EventCollection(
-                mapByCalendar.entrySet().stream().map(entry -> Map.entry(entry.getKey(), Map.copyOf(entry.getValue()))).collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)),
-                mapBySource.entrySet().stream().map(entry -> Map.entry(entry.getKey(), entry.getValue().values().stream().sorted(Comparator.comparing(Event::id)).toList())).collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue))
-        );
     }
 
-    public record EventCollection(Map<ConfiguredService.Identifier, Map<EventKey, Event>> eventsByCalendar, Map<String, List<Event>> eventsBySource) {}
+    private static void filterEvents(String name, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource> entry, List<Event> rawEvents, Map<EventKey, Event> events) throws IOException {
+        for (Event event : rawEvents) {
+            EventKey key = new EventKey(entry.key().moduleName(), entry.id(), event.id());
+            @Nullable Event filteredEvent = filterEvent(entry.value(), key, event);
+            if (filteredEvent != null && events.putIfAbsent(key, filteredEvent) != null) {
+                throw new IllegalStateException("Duplicate event key detected: " + event.id() + " (in source " + name + ")");
+            }
+        }
+    }
+
+    private static @Nullable Event filterEvent(ConfiguredEventSource source, EventKey key, Event event) throws IOException {
+        Event filteredEvent = event;
+        for (EventFilter filter : source.filterChain()) {
+            if ((filteredEvent = filter.filter(key, filteredEvent)) == null) return null;
+            if (!Objects.equals(filteredEvent.id(), event.id()))
+                throw new IllegalStateException("Filter modified event id. This is not allowed.");
+        }
+        return filteredEvent;
+    }
+
+    private static void mergeResult(Map<ConfiguredService.Identifier, Map<EventKey, Event>> mapByCalendar, Map<String, Map<EventKey, Event>> mapBySource, Map<EventKey, EventFingerprint> fingerprints, SourceResult result) throws IOException {
+        // Always add the by-source entry so sources with 0 events get an entry as well.
+        mapBySource.put(result.name(), result.events());
+        fingerprints.putAll(result.fingerprints());
+        for (Map.Entry<EventKey, Event> entry : result.events().entrySet()) {
+            for (ConfiguredService<CalendarType<?, ?>, Calendar> recipient : result.source().value().recipients()) {
+                if (mapByCalendar.computeIfAbsent(recipient.identifier(), k -> new HashMap<>()).put(entry.getKey(), entry.getValue()) != null) {
+                    throw new IllegalStateException("Duplicate event key detected: " + entry.getKey().eventId() + " (in calendar " + recipient.id() + ")");
+                }
+            }
+        }
+        switch (result.failure()) {
+            case null -> {}
+            case IOException ioex -> throw ioex;
+            case RuntimeException rex -> throw rex;
+            default -> throw new IllegalStateException(result.failure());
+        }
+    }
+
+    private record SourceResult(String name, ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource> source, Map<EventKey, Event> events, Map<EventKey, EventFingerprint> fingerprints, @Nullable Exception failure) {}
+
+    /**
+     * The collected events. {@code fingerprints} contains the already known fingerprints of the collected events,
+     * which is not necessarily all of them.
+     */
+    public record EventCollection(Map<ConfiguredService.Identifier, Map<EventKey, Event>> eventsByCalendar, Map<String, List<Event>> eventsBySource, Map<EventKey, EventFingerprint> fingerprints) {}
 }
@@ -0,0 +1,159 @@
+package eu.tuxtown.crocus.core.sync;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.api.calendar.EventFilter;
+import eu.tuxtown.crocus.impl.dataio.AttributeTable;
+import eu.tuxtown.crocus.impl.dataio.BinaryIO;
+import eu.tuxtown.crocus.impl.dataio.EventFingerprint;
+import eu.tuxtown.crocus.impl.dataio.EventIO;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.lang.module.ModuleDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Caches the filtered events of each source. The cache is keyed by a digest of the events the source produced before
+ * filtering and a digest of the filter configuration. If both match, the filters are not run again and the cached
+ * events are used together with their {@link EventFingerprint fingerprints}, so the calendar diff doesn't need to
+ * compute them again.
+ *
+ * <p>The filter configuration digest covers the system configuration file as well as the name, type and plugin
+ * version of each filter in the chain. Filters that depend on anything else, like the current time, are not
+ * re-evaluated while the source is unchanged.
+ *
+ * <p>Each cache file starts with a header holding both digests and the attribute table of the cached events.
+ */
+@NotNullByDefault
+public final class SourceCache {
+
+    private static final int MAGIC = 0x43525343; // CRSC
+    private static final int VERSION = 2;
+
+    private final Path path;
+    private final byte[] configDigest;
+
+    private SourceCache(Path path, byte[] configDigest) {
+        this.path = path;
+        this.configDigest = configDigest;
+    }
+
+    public static SourceCache create(Path path, Path configPath) throws IOException {
+        byte[] config = Files.isRegularFile(configPath) ? Files.readAllBytes(configPath) : new byte[0];
+        return new SourceCache(path, newDigest().digest(config));
+    }
+
+    /**
+     * Computes the cache key for a source given its unfiltered events.
+     */
+    public Key key(String sourceName, List<Event> rawEvents, List<EventFilter> filterChain) throws IOException {
+        MessageDigest rawDigest = newDigest();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), rawDigest)))) {
+            AttributeTable table = AttributeTable.of(rawEvents);
+            table.write(out);
+            BinaryIO.writeVarInt(out, rawEvents.size());
+            for (Event event : rawEvents) {
+                EventIO.writeEvent(out, event, table);
+            }
+        }
+
+        MessageDigest filterDigest = newDigest();
+        filterDigest.update(this.configDigest);
+        for (EventFilter filter : filterChain) {
+            Module module = filter.getClass().getModule();
+            String version = Optional.ofNullable(module.getDescriptor()).flatMap(ModuleDescriptor::rawVersion).orElse("");
+            String description = module.getName() + "@" + version + "/" + filter.getClass().getName() + "/" + filter.name() + "\n";
+            filterDigest.update(description.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new Key(sourceName, rawDigest.digest(), filterDigest.digest());
+    }
+
+    /**
+     * Gets the cached filtered events for a source, if the key matches.
+     */
+    public @Nullable Result lookup(Key key) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.cacheFile(key))))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) return null;
+            byte[] rawDigest = new byte[key.rawDigest().length];
+            byte[] filterDigest = new byte[key.filterDigest().length];
+            in.readFully(rawDigest);
+            in.readFully(filterDigest);
+            if (!Arrays.equals(rawDigest, key.rawDigest()) || !Arrays.equals(filterDigest, key.filterDigest())) return null;
+
+            AttributeTable table = AttributeTable.read(in);
+            int count = BinaryIO.readVarInt(in);
+            List<Event> events = new ArrayList<>(count);
+            List<EventFingerprint> fingerprints = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                events.add(EventIO.readEvent(in, table));
+                fingerprints.add(EventFingerprint.read(in));
+            }
+            return new Result(List.copyOf(events), List.copyOf(fingerprints));
+        } catch (IOException | RuntimeException e) {
+            // Missing, broken or outdated cache entries are treated as a miss and replaced.
+            return null;
+        }
+    }
+
+    /**
+     * Stores the filtered events of a source and returns their fingerprints.
+     */
+    public List<EventFingerprint> store(Key key, Collection<Event> events) throws IOException {
+        List<EventFingerprint> fingerprints = new ArrayList<>(events.size());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.write(key.rawDigest());
+            out.write(key.filterDigest());
+            AttributeTable table = AttributeTable.of(events);
+            table.write(out);
+            BinaryIO.writeVarInt(out, events.size());
+            for (Event event : events) {
+                EventFingerprint fingerprint = EventFingerprint.of(event);
+                fingerprints.add(fingerprint);
+                EventIO.writeEvent(out, event, table);
+                fingerprint.write(out);
+            }
+        }
+
+        Files.createDirectories(this.path);
+        Path file = this.cacheFile(key);
+        Path tempFile = Files.createTempFile(this.path, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, bytes.toByteArray());
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return List.copyOf(fingerprints);
+    }
+
+    private Path cacheFile(Key key) {
+        return this.path.resolve(HexFormat.of().formatHex(newDigest().digest(key.sourceName().getBytes(StandardCharsets.UTF_8))) + ".dat");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+
+    public record Key(String sourceName, byte[] rawDigest, byte[] filterDigest) {}
+
+    /**
+     * The cached filtered events of a source in the order they were produced and their fingerprints.
+     */
+    public record Result(List<Event> events, List<EventFingerprint> fingerprints) {}
+}
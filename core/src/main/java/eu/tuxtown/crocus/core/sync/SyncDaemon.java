@@ -0,0 +1,247 @@
+package eu.tuxtown.crocus.core.sync;
+
+import eu.tuxtown.crocus.api.Crocus;
+import eu.tuxtown.crocus.api.calendar.Calendar;
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.api.calendar.EventKey;
+import eu.tuxtown.crocus.api.service.CalendarType;
+import eu.tuxtown.crocus.api.service.EventSourceType;
+import eu.tuxtown.crocus.core.CrocusRuntime;
+import eu.tuxtown.crocus.core.Main;
+import eu.tuxtown.crocus.core.configuration.ConfiguredEventSource;
+import eu.tuxtown.crocus.core.configuration.ConfiguredService;
+import eu.tuxtown.crocus.core.configuration.SystemConfiguration;
+import eu.tuxtown.crocus.core.loader.SystemLoader;
+import eu.tuxtown.crocus.impl.dataio.EventFingerprint;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Keeps plugins, services and the system configuration loaded and syncs calendars on a schedule. Each source is queried
+// in its own interval. The last events of each source are kept, so a calendar can be synced as soon as one of its
+// sources returned different events.
+@NotNullByDefault
+public class SyncDaemon {
+
+    private static final Duration CONFIG_POLL_INTERVAL = Duration.ofSeconds(30);
+
+    private final Path path;
+    private final Duration defaultInterval;
+    private final int calendarThreads;
+    private final boolean cacheSources;
+    private final Map<String, EventCollector.EventCollection> collected;
+    private final Map<String, Instant> nextRun;
+    private final Set<ConfiguredService.Identifier> pendingCalendars;
+    private SystemConfiguration config;
+    private @Nullable SourceCache cache;
+    private String configVersion;
+
+    private SyncDaemon(Path path, SystemConfiguration config, Duration defaultInterval, int calendarThreads, boolean cacheSources) throws IOException {
+        this.path = path;
+        this.defaultInterval = defaultInterval;
+        this.calendarThreads = calendarThreads;
+        this.cacheSources = cacheSources;
+        this.collected = new HashMap<>();
+        this.nextRun = new HashMap<>();
+        this.pendingCalendars = new HashSet<>();
+        this.configVersion = configVersion(path);
+        this.applyConfig(config);
+    }
+
+    @SuppressWarnings("ConfusingMainMethod")
+    public static void main(OptionParser options, Main.Action action, String[] args) throws IOException {
+        OptionSpec<Integer> specInterval = options.accepts("interval", "Query event sources without a configured interval every n minutes.").withRequiredArg().ofType(Integer.class).defaultsTo(15);
+        OptionSpec<Integer> specCalendarThreads = options.accepts("calendar-threads", "Sync up to this many calendars concurrently.").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+        OptionSpec<Void> specCacheSources = options.accepts("cache-sources", "Reuse the filtered events of sources that did not change since the last run.");
+
+        if (action instanceof Main.Action.ShowHelp) {
+            options.printHelpOn(System.out);
+        } else if (action instanceof Main.Action.Run(SystemConfiguration systemConfig)) {
+            OptionSet set = options.parse(args);
+            if (set.valueOf(specInterval) <= 0) throw new IllegalArgumentException("Sync interval must be positive.");
+            SyncDaemon daemon = new SyncDaemon(CrocusRuntime.get().path(), systemConfig, Duration.ofMinutes(set.valueOf(specInterval)), set.valueOf(specCalendarThreads), set.has(specCacheSources));
+            daemon.run();
+        }
+    }
+
+    private void run() {
+        Crocus.info("Running sync daemon");
+        while (true) {
+            this.checkConfig();
+            Instant now = Instant.now();
+            List<String> dueSources = this.config.sources().keySet().stream()
+                    .filter(name -> !this.nextRun.containsKey(name) || !this.nextRun.get(name).isAfter(now))
+                    .sorted().toList();
+            if (!dueSources.isEmpty() || (!this.pendingCalendars.isEmpty() && this.nextRun.isEmpty())) {
+                Crocus.info("Sync started at " + now);
+                CrocusRuntime.get().increaseLogLayer();
+                try {
+                    this.querySources(dueSources, now);
+                    this.syncCalendars();
+                } finally {
+                    CrocusRuntime.get().decreaseLogLayer();
+                }
+            }
+
+            Instant wakeUp = Stream.concat(this.nextRun.values().stream(), Stream.of(Instant.now().plus(CONFIG_POLL_INTERVAL))).min(Comparator.naturalOrder()).orElseThrow();
+            try {
+                Duration sleepTime = Duration.between(Instant.now(), wakeUp);
+                if (sleepTime.isPositive()) Thread.sleep(sleepTime);
+            } catch (InterruptedException e) {
+                Crocus.info("Sync daemon interrupted, stopping.");
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void checkConfig() {
+        String version;
+        try {
+            version = configVersion(this.path);
+        } catch (IOException e) {
+            Crocus.debug("Failed to check system configuration for changes: " + e.getMessage());
+            return;
+        }
+        if (version.equals(this.configVersion)) return;
+        // Remember the version even if loading fails, so a broken configuration is not loaded over and over again.
+        this.configVersion = version;
+
+        Crocus.info("System configuration changed, reloading");
+        CrocusRuntime.get().increaseLogLayer();
+        try {
+            this.applyConfig(SystemLoader.reload(CrocusRuntime.get()));
+        } catch (Exception e) {
+            logFailure("Failed to reload system configuration, keeping the previous one", e);
+        } finally {
+            CrocusRuntime.get().decreaseLogLayer();
+        }
+    }
+
+    private void applyConfig(SystemConfiguration config) throws IOException {
+        // The source cache is keyed by the configuration it was created with, so it must be recreated as well.
+        this.cache = this.cacheSources ? SourceCache.create(this.path.resolve("source-cache"), this.path.resolve("config.groovy")) : null;
+        this.config = config;
+        this.collected.clear();
+        this.nextRun.clear();
+        this.pendingCalendars.clear();
+        for (ConfiguredService<CalendarType<?, ?>, Calendar> calendar : config.calendars().values()) {
+            this.pendingCalendars.add(calendar.identifier());
+        }
+    }
+
+    private void querySources(List<String> dueSources, Instant now) {
+        for (String name : dueSources) {
+            ConfiguredService<EventSourceType<?, ?>, ConfiguredEventSource> source = this.config.sources().get(name);
+            this.nextRun.put(name, now.plus(Objects.requireNonNullElse(source.value().interval(), this.defaultInterval)));
+            try {
+                // Sources are collected one by one, so a failing source does not hold back the others.
+                EventCollector.EventCollection events = EventCollector.collectEvents(Map.of(name, source), 1, this.cache);
+                EventCollector.EventCollection oldEvents = this.collected.put(name, events);
+                if (oldEvents == null || !oldEvents.eventsBySource().equals(events.eventsBySource())) {
+                    for (ConfiguredService<CalendarType<?, ?>, Calendar> recipient : source.value().recipients()) {
+                        this.pendingCalendars.add(recipient.identifier());
+                    }
+                }
+            } catch (Exception e) {
+                logFailure("Failed to query source " + name + ", retrying at " + this.nextRun.get(name), e);
+            }
+        }
+    }
+
+    private void syncCalendars() {
+        List<Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>>> calendars = new ArrayList<>();
+        for (Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>> entry : this.config.calendars().entrySet().stream().sorted(Map.Entry.comparingByKey()).toList()) {
+            if (!this.pendingCalendars.contains(entry.getValue().identifier())) continue;
+            // Syncing a calendar without the events of one of its sources would delete them from the calendar.
+            boolean complete = this.config.sources().entrySet().stream()
+                    .filter(source -> source.getValue().value().recipients().stream().anyMatch(recipient -> recipient.identifier().equals(entry.getValue().identifier())))
+                    .allMatch(source -> this.collected.containsKey(source.getKey()));
+            if (complete) {
+                calendars.add(entry);
+            } else {
+                Crocus.info("Not syncing " + entry.getKey() + ": Some of its sources have not been queried successfully yet.");
+            }
+        }
+        if (calendars.isEmpty()) {
+            Crocus.info("All calendars are up to date.");
+            return;
+        }
+
+        EventCollector.EventCollection events = this.mergeCollectedEvents();
+        Path calendarsPath = this.path.resolve("calendars");
+        try {
+            if (!Files.isDirectory(calendarsPath)) Files.createDirectories(calendarsPath);
+            if (this.calendarThreads <= 1 || calendars.size() <= 1) {
+                for (Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>> entry : calendars) {
+                    try {
+                        SyncMain.syncCalendar(calendarsPath, entry.getKey(), entry.getValue(), events, false);
+                        this.pendingCalendars.remove(entry.getValue().identifier());
+                    } catch (Exception e) {
+                        logFailure("Failed to sync " + entry.getKey(), e);
+                    }
+                }
+            } else {
+                // Calendars that are already up to date are cheap to sync again, so all of them stay pending on failure.
+                SyncMain.syncConcurrently(calendarsPath, calendars, events, false, this.calendarThreads);
+                for (Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>> entry : calendars) {
+                    this.pendingCalendars.remove(entry.getValue().identifier());
+                }
+            }
+        } catch (Exception e) {
+            logFailure("Failed to sync calendars", e);
+        }
+    }
+
+    private EventCollector.EventCollection mergeCollectedEvents() {
+        Map<ConfiguredService.Identifier, Map<EventKey, Event>> eventsByCalendar = new HashMap<>();
+        Map<String, List<Event>> eventsBySource = new HashMap<>();
+        Map<EventKey, EventFingerprint> fingerprints = new HashMap<>();
+        // Event keys contain the source name, so events from different sources never collide.
+        for (EventCollector.EventCollection events : this.collected.values()) {
+            for (Map.Entry<ConfiguredService.Identifier, Map<EventKey, Event>> entry : events.eventsByCalendar().entrySet()) {
+                eventsByCalendar.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).putAll(entry.getValue());
+            }
+            eventsBySource.putAll(events.eventsBySource());
+            fingerprints.putAll(events.fingerprints());
+        }
+        return new EventCollector.EventCollection(Collections.unmodifiableMap(eventsByCalendar), Collections.unmodifiableMap(eventsBySource), Collections.unmodifiableMap(fingerprints));
+    }
+
+    private static void logFailure(String message, Exception e) {
+        Crocus.info(message + ": " + e.getMessage());
+        if (CrocusRuntime.get().verbose()) e.printStackTrace();
+    }
+
+    // Size and modification time of all files that are read when loading the system configuration.
+    private static String configVersion(Path path) throws IOException {
+        List<Path> files = new ArrayList<>();
+        files.add(path.resolve("config.groovy"));
+        files.add(path.resolve("secrets.properties"));
+        Path secretDir = path.resolve("secrets");
+        if (Files.isDirectory(secretDir)) {
+            try (Stream<Path> paths = Files.list(secretDir)) {
+                files.addAll(paths.sorted().toList());
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Path file : files) {
+            sb.append(path.relativize(file)).append(':');
+            if (Files.isRegularFile(file)) {
+                sb.append(Files.size(file)).append(':').append(Files.getLastModifiedTime(file).toMillis());
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+}
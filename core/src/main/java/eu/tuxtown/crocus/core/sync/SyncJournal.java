@@ -0,0 +1,312 @@
+package eu.tuxtown.crocus.core.sync;
+
+import eu.tuxtown.crocus.api.Crocus;
+import eu.tuxtown.crocus.api.calendar.EventKey;
+import eu.tuxtown.crocus.impl.dataio.BinaryIO;
+import eu.tuxtown.crocus.impl.dataio.EventFingerprint;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.*;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead journal for a running calendar update. It is stored in a memory-mapped file next to the calendar
+ * state and records every id change as soon as the calendar reports it. If the update is interrupted (even if the
+ * process is killed and no failure state can be written), the journal is replayed on top of the calendar state the
+ * update started from. This way, only the operations that were not confirmed by the calendar need to be repaired
+ * instead of deleting all events.
+ *
+ * <p>The journal starts with a header containing the checksum of the calendar state file it is based on. A journal
+ * that doesn't match the current state file is stale and ignored. The header is followed by records of the form
+ * {@code [length][crc32][type][payload]}. The length is written last, so a partially written record is never
+ * replayed. Records are written to a shared mapping of the file, so they are in the page cache once the append
+ * returns and survive the process being killed. The journal is only forced to disk when it is closed. Until then,
+ * records are lost only if the operating system crashes or the machine loses power.
+ *
+ * <p>Appending, replaying and closing are synchronized, as records may be appended from the threads of a calendar
+ * while a shutdown hook closes the journal. Once the journal is closed, appending a record fails with an
+ * {@link IOException}.
+ */
+@NotNullByDefault
+final class SyncJournal implements Closeable {
+
+    private static final int MAGIC = 0x43524A4C; // CRJL
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final long INITIAL_SIZE = 64 * 1024;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private static final int BEGIN = 1;
+    private static final int SET_ID = 2;
+    private static final int REMOVE_ID = 3;
+    private static final int DELETED = 4;
+
+    private final Path path;
+    private final FileChannel channel;
+    private Arena arena;
+    private MemorySegment segment;
+    private long position;
+    private boolean closed;
+
+    private SyncJournal(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.arena = Arena.ofShared();
+        this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_SIZE, this.arena);
+        this.position = HEADER_SIZE;
+        this.closed = false;
+    }
+
+    public static Path journalPath(Path statePath) {
+        String fileName = statePath.getFileName().toString();
+        return statePath.resolveSibling(fileName.substring(0, fileName.lastIndexOf('.')) + ".journal");
+    }
+
+    /**
+     * Starts a new journal for an update based on the given state file. Any existing journal is overwritten.
+     */
+    public static SyncJournal create(Path path, Path statePath) throws IOException {
+        long base = stateChecksum(statePath);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            SyncJournal journal = new SyncJournal(path, channel);
+            journal.segment.set(INT, 0, MAGIC);
+            journal.segment.set(INT, 4, VERSION);
+            journal.segment.set(LONG, 8, base);
+            journal.segment.force();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replays a journal left behind by an interrupted update onto the state it was based on. Returns the
+     * given state, if there is no journal or the journal is stale.
+     */
+    public static CalendarState recover(Path path, Path statePath, CalendarState state) throws IOException {
+        if (!Files.isRegularFile(path)) return state;
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != stateChecksum(statePath)) {
+            Crocus.debug("Ignoring stale sync journal " + path.getFileName());
+            Files.deleteIfExists(path);
+            return state;
+        }
+        Replay replay = replay(buffer, state);
+        Crocus.info("Recovered " + replay.operations + " operations from an interrupted update.");
+        return replay.toState();
+    }
+
+    /**
+     * Replays this journal onto the state, the update started from.
+     */
+    public synchronized CalendarState recover(CalendarState state) throws IOException {
+        if (this.closed) throw new IOException("Sync journal is already closed.");
+        ByteBuffer buffer = this.segment.asSlice(0, this.position).asByteBuffer();
+        buffer.position(HEADER_SIZE);
+        return replay(buffer, state).toState();
+    }
+
+    /**
+     * Records the events that are about to be modified or deleted. Until the calendar confirms a change, the
+     * affected events are in an unknown state.
+     */
+    public void begin(Set<EventKey> changed, Set<EventKey> deleted) throws IOException {
+        this.append(BEGIN, out -> {
+            BinaryIO.writeVarInt(out, changed.size());
+            for (EventKey key : changed) writeKey(out, key);
+            BinaryIO.writeVarInt(out, deleted.size());
+            for (EventKey key : deleted) writeKey(out, key);
+        });
+    }
+
+    public void setId(EventKey key, String id) throws IOException {
+        this.append(SET_ID, out -> {
+            writeKey(out, key);
+            BinaryIO.writeString(out, id);
+        });
+    }
+
+    public void removeId(EventKey key) throws IOException {
+        this.append(REMOVE_ID, out -> writeKey(out, key));
+    }
+
+    public void deleted(Set<String> internalIds) throws IOException {
+        this.append(DELETED, out -> {
+            BinaryIO.writeVarInt(out, internalIds.size());
+            for (String id : internalIds) BinaryIO.writeString(out, id);
+        });
+    }
+
+    /**
+     * Closes and deletes the journal. This must only be called once the result of the update has been written
+     * to the state file.
+     */
+    public void delete() throws IOException {
+        this.close(false);
+        Files.deleteIfExists(this.path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.close(true);
+    }
+
+    private synchronized void close(boolean force) throws IOException {
+        if (force && !this.closed && this.arena.scope().isAlive()) {
+            this.segment.force();
+        }
+        this.closed = true;
+        if (this.arena.scope().isAlive()) {
+            this.arena.close();
+        }
+        this.channel.close();
+    }
+
+    private synchronized void append(int type, RecordWriter writer) throws IOException {
+        if (this.closed) throw new IOException("Sync journal is already closed.");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        writer.write(out);
+        out.close();
+        byte[] data = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        // Keep space for an empty length after the record, which marks the end of the journal.
+        this.ensureCapacity(this.position + RECORD_HEADER_SIZE + data.length + 4);
+        MemorySegment.copy(data, 0, this.segment, ValueLayout.JAVA_BYTE, this.position + RECORD_HEADER_SIZE, data.length);
+        this.segment.set(INT, this.position + 4, (int) crc.getValue());
+        this.segment.set(INT, this.position, data.length);
+        this.position += RECORD_HEADER_SIZE + data.length;
+    }
+
+    private void ensureCapacity(long required) throws IOException {
+        if (required <= this.segment.byteSize()) return;
+        long size = this.segment.byteSize();
+        while (size < required) size *= 2;
+        // Mapping a larger region grows the file. The new part is filled with zeros.
+        Arena newArena = Arena.ofShared();
+        MemorySegment newSegment = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size, newArena);
+        this.arena.close();
+        this.arena = newArena;
+        this.segment = newSegment;
+    }
+
+    private static Replay replay(ByteBuffer buffer, CalendarState state) {
+        Replay replay = new Replay(state);
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) break;
+            byte[] data = new byte[length];
+            buffer.get(data);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            if ((int) crc.getValue() != checksum) break;
+            try {
+                replay.apply(new DataInputStream(new ByteArrayInputStream(data)));
+            } catch (IOException | BufferUnderflowException e) {
+                break;
+            }
+        }
+        return replay;
+    }
+
+    private static long stateChecksum(Path statePath) throws IOException {
+        CRC32 crc = new CRC32();
+        if (Files.isRegularFile(statePath)) {
+            crc.update(Files.readAllBytes(statePath));
+        }
+        return crc.getValue();
+    }
+
+    private static void writeKey(DataOutput out, EventKey key) throws IOException {
+        BinaryIO.writeString(out, key.pluginId());
+        BinaryIO.writeString(out, key.sourceName());
+        BinaryIO.writeString(out, key.eventId());
+    }
+
+    private static EventKey readKey(DataInput in) throws IOException {
+        return new EventKey(BinaryIO.readString(in), BinaryIO.readString(in), BinaryIO.readString(in));
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    // Applies journal records to the state, the update started from.
+    private static final class Replay {
+
+        private final Set<String> eventsToDelete;
+        private final Map<EventKey, String> idMap;
+        private final Map<EventKey, EventFingerprint> fingerprints;
+        private final Set<EventKey> pendingDeletes = new HashSet<>();
+        private int operations = 0;
+
+        private Replay(CalendarState state) {
+            this.eventsToDelete = new HashSet<>(state.eventsToDelete());
+            this.idMap = new HashMap<>(state.idMap());
+            this.fingerprints = new HashMap<>(state.fingerprints());
+        }
+
+        private void apply(DataInput in) throws IOException {
+            int type = in.readUnsignedByte();
+            switch (type) {
+                case BEGIN -> {
+                    // The content of changed events is unknown until the next update, so they are sent again.
+                    int changedCount = BinaryIO.readVarInt(in);
+                    for (int i = 0; i < changedCount; i++) this.fingerprints.remove(readKey(in));
+                    int deletedCount = BinaryIO.readVarInt(in);
+                    for (int i = 0; i < deletedCount; i++) this.pendingDeletes.add(readKey(in));
+                }
+                case SET_ID -> {
+                    EventKey key = readKey(in);
+                    this.idMap.put(key, BinaryIO.readString(in));
+                }
+                case REMOVE_ID -> {
+                    EventKey key = readKey(in);
+                    this.idMap.remove(key);
+                    this.fingerprints.remove(key);
+                    this.pendingDeletes.remove(key);
+                }
+                case DELETED -> {
+                    int count = BinaryIO.readVarInt(in);
+                    Set<String> ids = HashSet.newHashSet(count);
+                    for (int i = 0; i < count; i++) ids.add(BinaryIO.readString(in));
+                    this.eventsToDelete.removeAll(ids);
+                    this.idMap.values().removeIf(ids::contains);
+                }
+                default -> throw new IOException("Unknown journal record type: " + type);
+            }
+            this.operations += 1;
+        }
+
+        private CalendarState toState() {
+            // Deletions that were not confirmed are repaired by deleting the internal ids in the next update.
+            for (EventKey key : this.pendingDeletes) {
+                String id = this.idMap.remove(key);
+                if (id != null) this.eventsToDelete.add(id);
+                this.fingerprints.remove(key);
+            }
+            return new CalendarState(Set.copyOf(this.eventsToDelete), Map.copyOf(this.idMap), Map.copyOf(this.fingerprints));
+        }
+    }
+}
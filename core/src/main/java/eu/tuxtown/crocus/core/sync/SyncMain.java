@@ -9,20 +9,19 @@ import eu.tuxtown.crocus.core.CrocusRuntime;
 import eu.tuxtown.crocus.core.Main;
 import eu.tuxtown.crocus.core.configuration.ConfiguredService;
 import eu.tuxtown.crocus.core.configuration.SystemConfiguration;
-import eu.tuxtown.crocus.impl.json.EventJson;
+import eu.tuxtown.crocus.impl.dataio.Compression;
+import eu.tuxtown.crocus.impl.dataio.EventDump;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
 import org.jetbrains.annotations.NotNullByDefault;
 
 import java.io.IOException;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.List;
-import java.util.Map;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
 
 @NotNullByDefault
 public class SyncMain {
@@ -31,6 +30,12 @@ public class SyncMain {
     public static void main(OptionParser options, Main.Action action, String[] args) throws IOException {
         OptionSpec<Void> specNoIncremental = options.accepts("no-incremental", "Clears all calendars and reinserts all events.");
         OptionSpec<Void> specDump = options.accepts("dump", "Dump events to json before syncing them.");
+        OptionSpec<Void> specCompactDump = options.accepts("compact-dump", "Write dumps without indentation.");
+        OptionSpec<Void> specBinaryDump = options.accepts("binary-dump", "Write dumps in the binary format instead of json.");
+        OptionSpec<Void> specCompressDump = options.accepts("compress-dump", "Write gzip compressed dumps.");
+        OptionSpec<Integer> specSourceThreads = options.accepts("source-threads", "Query up to this many event sources concurrently.").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+        OptionSpec<Integer> specCalendarThreads = options.accepts("calendar-threads", "Sync up to this many calendars concurrently.").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+        OptionSpec<Void> specCacheSources = options.accepts("cache-sources", "Reuse the filtered events of sources that did not change since the last run.");
 
         if (action instanceof Main.Action.ShowHelp) {
             options.printHelpOn(System.out);
@@ -41,7 +46,8 @@ public class SyncMain {
             EventCollector.EventCollection events;
             CrocusRuntime.get().increaseLogLayer();
             try {
-                events = EventCollector.collectEvents(systemConfig.sources());
+                SourceCache cache = set.has(specCacheSources) ? SourceCache.create(CrocusRuntime.get().path().resolve("source-cache"), CrocusRuntime.get().path().resolve("config.groovy")) : null;
+                events = EventCollector.collectEvents(systemConfig.sources(), set.valueOf(specSourceThreads), cache);
             } finally {
                 CrocusRuntime.get().decreaseLogLayer();
             }
@@ -55,8 +61,9 @@ public class SyncMain {
                     for (Map.Entry<String, List<Event>> entry : events.eventsBySource().entrySet()) {
                         Crocus.info("Dumping " + entry.getKey());
                         CrocusRuntime.get().increaseLogLayer();
-                        try (Writer writer = Files.newBufferedWriter(dumpPath.resolve(entry.getKey() + ".json"), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                            EventJson.writeEvents(writer, entry.getValue());
+                        try {
+                            String fileName = entry.getKey() + (set.has(specBinaryDump) ? EventDump.EXTENSION : ".json") + (set.has(specCompressDump) ? Compression.EXTENSION : "");
+                            EventDump.writeFile(dumpPath.resolve(fileName), entry.getValue(), set.has(specBinaryDump), set.has(specCompactDump));
                         } catch (Exception e) {
                             throw new RuntimeException("Failed to dump source " + entry.getKey());
                         } finally {
@@ -73,16 +80,13 @@ public class SyncMain {
             try {
                 Path calendarsPath = CrocusRuntime.get().path().resolve("calendars");
                 if (!Files.isDirectory(calendarsPath)) Files.createDirectories(calendarsPath);
-                for (Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>> entry : systemConfig.calendars().entrySet().stream().sorted(Map.Entry.comparingByKey()).toList()) {
-                    // We also have to sync empty calendars as they may contain old events that need to be deleted.
-                    Crocus.info("Syncing " + entry.getKey());
-                    CrocusRuntime.get().increaseLogLayer();
-                    try {
-                        Map<EventKey, Event> collectedEvents = events.eventsByCalendar().getOrDefault(entry.getValue().identifier(), Map.of());
-                        CalendarUpdater.updateCalendar(calendarsPath, entry.getValue(), collectedEvents, set.has(specNoIncremental));
-                    } finally {
-                        CrocusRuntime.get().decreaseLogLayer();
+                List<Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>>> calendars = systemConfig.calendars().entrySet().stream().sorted(Map.Entry.comparingByKey()).toList();
+                if (set.valueOf(specCalendarThreads) <= 1 || calendars.size() <= 1) {
+                    for (Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>> entry : calendars) {
+                        syncCalendar(calendarsPath, entry.getKey(), entry.getValue(), events, set.has(specNoIncremental));
                     }
+                } else {
+                    syncConcurrently(calendarsPath, calendars, events, set.has(specNoIncremental), set.valueOf(specCalendarThreads));
                 }
             } finally {
                 CrocusRuntime.get().decreaseLogLayer();
@@ -91,4 +95,65 @@ public class SyncMain {
             Crocus.info("Done");
         }
     }
+
+    static void syncCalendar(Path calendarsPath, String name, ConfiguredService<CalendarType<?, ?>, Calendar> calendar, EventCollector.EventCollection events, boolean noIncremental) throws IOException {
+        // We also have to sync empty calendars as they may contain old events that need to be deleted.
+        Crocus.info("Syncing " + name);
+        CrocusRuntime.get().increaseLogLayer();
+        try {
+            Map<EventKey, Event> collectedEvents = events.eventsByCalendar().getOrDefault(calendar.identifier(), Map.of());
+            CalendarUpdater.updateCalendar(calendarsPath, calendar, collectedEvents, events.fingerprints(), noIncremental);
+        } finally {
+            CrocusRuntime.get().decreaseLogLayer();
+        }
+    }
+
+    // Calendars are independent of each other, so a failure in one calendar does not stop the others from syncing.
+    static void syncConcurrently(Path calendarsPath, List<Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>>> calendars, EventCollector.EventCollection events, boolean noIncremental, int threads) {
+        record Task(String name, CrocusRuntime.LogSection log, Future<Duration> result) {}
+        ThreadFactory threadFactory = Thread.ofPlatform().name("crocus-sync-", 1).factory();
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, calendars.size()), threadFactory)) {
+            List<Task> tasks = new ArrayList<>(calendars.size());
+            for (Map.Entry<String, ConfiguredService<CalendarType<?, ?>, Calendar>> entry : calendars) {
+                CrocusRuntime.LogSection log = CrocusRuntime.get().newLogSection();
+                tasks.add(new Task(entry.getKey(), log, executor.submit(() -> log.call(() -> {
+                    long start = System.nanoTime();
+                    syncCalendar(calendarsPath, entry.getKey(), entry.getValue(), events, noIncremental);
+                    return Duration.ofNanos(System.nanoTime() - start);
+                }))));
+            }
+            List<String> summary = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                try {
+                    Duration time = task.result().get();
+                    summary.add(task.name() + ": Done" + String.format(Locale.ROOT, " (%1.3f seconds)", time.toMillis() / 1000d));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while syncing calendars.", e);
+                } catch (ExecutionException e) {
+                    Exception failure = e.getCause() instanceof Exception ex ? ex : e;
+                    summary.add(task.name() + ": Failed (" + failure.getMessage() + ")");
+                    failures.put(task.name(), failure);
+                } finally {
+                    task.log().flush();
+                }
+            }
+            Crocus.info("Summary");
+            CrocusRuntime.get().increaseLogLayer();
+            try {
+                for (String line : summary) {
+                    Crocus.info(line);
+                }
+            } finally {
+                CrocusRuntime.get().decreaseLogLayer();
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            RuntimeException ex = new RuntimeException("Failed to sync " + failures.size() + " out of " + calendars.size() + " calendars: " + String.join(", ", failures.keySet()));
+            failures.values().forEach(ex::addSuppressed);
+            throw ex;
+        }
+    }
 }
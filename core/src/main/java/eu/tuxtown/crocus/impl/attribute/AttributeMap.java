@@ -6,62 +6,170 @@ import eu.tuxtown.crocus.api.attribute.Attributes;
 import eu.tuxtown.crocus.impl.dataio.ValueIO;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 
-// externalizable wrapper around an attribute map that serializes the attributes using their adapter.
+// Immutable attribute map backed by two arrays sorted by attribute registry index. Events hold only a few attributes,
+// so lookups scan the keys by identity. The map is never modified after construction, so it can be shared between an
+// event and all copies made from it.
+// The map is externalizable and serializes the attributes using their adapter. Attribute names are written as objects,
+// so the object stream writes each name only once and references it by a handle afterwards. Maps written before that
+// start with their non-negative size and are still read.
 @NotNullByDefault
-public class AttributeMap implements Externalizable {
+public class AttributeMap extends AbstractMap<Attribute<?>, Object> implements Externalizable {
 
     @Serial
     private static final long serialVersionUID = 0;
 
-    private Map<Attribute<?>, ?> attributes;
+    // Shared by all events without attributes.
+    public static final AttributeMap EMPTY = new AttributeMap();
+
+    private static final Attribute<?>[] NO_KEYS = new Attribute<?>[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private Attribute<?>[] keys;
+    private Object[] values;
+    private transient @Nullable Set<Entry<Attribute<?>, Object>> entrySet;
 
     public AttributeMap() {
-        this.attributes = Map.of();
+        this.keys = NO_KEYS;
+        this.values = NO_VALUES;
+        this.entrySet = null;
     }
 
     public AttributeMap(Map<Attribute<?>, ?> attributes) {
-        this.attributes = Map.copyOf(attributes);
+        this();
+        this.init(attributes);
+    }
+
+    public static AttributeMap of(Map<Attribute<?>, ?> attributes) {
+        if (attributes.isEmpty()) return EMPTY;
+        if (attributes instanceof AttributeMap map) return map;
+        return new AttributeMap(attributes);
+    }
+
+    private void init(Map<Attribute<?>, ?> attributes) {
+        List<Attribute<?>> sorted = attributes.keySet().stream()
+                .sorted(Comparator.<Attribute<?>>comparingInt(AttributeRegistry::index).thenComparing(Attribute::name))
+                .toList();
+        Attribute<?>[] keys = new Attribute<?>[sorted.size()];
+        Object[] values = new Object[sorted.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = sorted.get(i);
+            values[i] = Objects.requireNonNull(attributes.get(keys[i]), "Attribute values must not be null.");
+        }
+        this.keys = keys;
+        this.values = values;
+        this.entrySet = null;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void writeExternal(ObjectOutput out) throws IOException {
-        Map<Attribute<?>, ?> map = this.attributes;
-        out.writeInt(map.size());
-        for (Attribute<?> attribute : map.keySet().stream().sorted().toList()) {
-            out.writeUTF(attribute.name());
-            ValueIO.writeValue(out, ((AttributeAdapter<@NotNull Object>) attribute.adapter()).store(map.get(attribute)));
+        // Negative size marks the current format.
+        out.writeInt(-1 - this.keys.length);
+        for (Attribute<?> attribute : Arrays.stream(this.keys).sorted().toList()) {
+            out.writeObject(attribute.name());
+            ValueIO.writeValue(out, ((AttributeAdapter<@NotNull Object>) attribute.adapter()).store(this.values[this.indexOf(attribute)]));
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        int size = in.readInt();
-        Map<Attribute<?>, Object> map = new HashMap<>(size);
+        int header = in.readInt();
+        boolean legacy = header >= 0;
+        int size = legacy ? header : -1 - header;
+        Map<Attribute<?>, Object> map = HashMap.newHashMap(size);
         for (int i = 0; i < size; i++) {
-            String attributeName = in.readUTF();
+            String attributeName = legacy ? in.readUTF() : (String) in.readObject();
             Attribute<?> attribute = Attributes.get(attributeName).orElse(null);
             if (attribute == null) throw new IOException("Unknown attribute in serialized data: " + attributeName);
             Object value = ((AttributeAdapter<@NotNull Object>) attribute.adapter()).load(ValueIO.readValue(in));
             if (value == null) continue;
             map.put(attribute, value);
         }
-        this.attributes = Map.copyOf(map);
+        this.init(map);
     }
 
     public Map<Attribute<?>, ?> map() {
-        return this.attributes;
+        return this;
     }
 
     @SuppressWarnings("unchecked")
     public <T> Optional<T> get(Attribute<T> attribute) {
-        return Optional.ofNullable((T) this.attributes.get(attribute));
+        int idx = this.indexOf(attribute);
+        return idx < 0 ? Optional.empty() : Optional.of((T) this.values[idx]);
+    }
+
+    private int indexOf(Object key) {
+        Attribute<?>[] keys = this.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return this.keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.keys.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.indexOf(key) >= 0;
+    }
+
+    @Override
+    public @Nullable Object get(Object key) {
+        int idx = this.indexOf(key);
+        return idx < 0 ? null : this.values[idx];
+    }
+
+    @Override
+    public Set<Entry<Attribute<?>, Object>> entrySet() {
+        Set<Entry<Attribute<?>, Object>> entrySet = this.entrySet;
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+            this.entrySet = entrySet;
+        }
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Attribute<?>, Object>> {
+
+        @Override
+        public int size() {
+            return AttributeMap.this.keys.length;
+        }
+
+        @Override
+        public Iterator<Entry<Attribute<?>, Object>> iterator() {
+            Attribute<?>[] keys = AttributeMap.this.keys;
+            Object[] values = AttributeMap.this.values;
+            return new Iterator<>() {
+
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < keys.length;
+                }
+
+                @Override
+                public Entry<Attribute<?>, Object> next() {
+                    if (this.next >= keys.length) throw new NoSuchElementException();
+                    int idx = this.next++;
+                    return Map.entry(keys[idx], values[idx]);
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,67 @@
+package eu.tuxtown.crocus.impl.attribute;
+
+import eu.tuxtown.crocus.api.attribute.Attribute;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+// Dense registry of all registered attributes. Each attribute gets an index into the registry when the runtime is
+// initialized. The index is stored in the attribute itself, so checking whether an attribute is registered or finding
+// its slot in an attribute array doesn't need a map lookup. Attributes that are not registered have index -1.
+@NotNullByDefault
+public final class AttributeRegistry {
+
+    public static final AttributeRegistry EMPTY = new AttributeRegistry(List.of());
+
+    // Set by the attribute implementation, which can't expose the index through the public api.
+    private static @Nullable Accessor accessor;
+
+    private final List<Attribute<?>> attributes;
+
+    private AttributeRegistry(List<Attribute<?>> attributes) {
+        this.attributes = attributes;
+    }
+
+    public static void setAccessor(Accessor accessor) {
+        if (AttributeRegistry.accessor != null) throw new IllegalStateException("Attribute accessor already set.");
+        AttributeRegistry.accessor = accessor;
+    }
+
+    /**
+     * Assigns an index to each attribute. Indices are assigned in order of the attribute names, so they are the same
+     * in every run with the same plugins.
+     */
+    public static AttributeRegistry create(Collection<Attribute<?>> attributes) {
+        List<Attribute<?>> sorted = attributes.stream().sorted(Comparator.comparing(Attribute::name)).toList();
+        for (int i = 0; i < sorted.size(); i++) {
+            if (index(sorted.get(i)) != -1) throw new IllegalStateException("Attribute registered twice: " + sorted.get(i));
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            Objects.requireNonNull(accessor).setIndex(sorted.get(i), i);
+        }
+        return new AttributeRegistry(sorted);
+    }
+
+    public static int index(Attribute<?> attribute) {
+        // No attribute can exist before the accessor is set.
+        return accessor == null ? -1 : accessor.index(attribute);
+    }
+
+    public static boolean isRegistered(Attribute<?> attribute) {
+        return index(attribute) >= 0;
+    }
+
+    public int size() {
+        return this.attributes.size();
+    }
+
+    public Attribute<?> get(int index) {
+        return this.attributes.get(index);
+    }
+
+    public interface Accessor {
+        int index(Attribute<?> attribute);
+        void setIndex(Attribute<?> attribute, int index);
+    }
+}
@@ -0,0 +1,26 @@
+package eu.tuxtown.crocus.impl.calendar;
+
+import org.jetbrains.annotations.NotNullByDefault;
+
+// Lossy interning for strings that repeat across many events, like locations, names of recurring events or attribute
+// values. Each hash slot holds the last string seen, so the pool never grows, which matters for the daemon. Races on a
+// slot are harmless, the worst case is a missed deduplication.
+@NotNullByDefault
+public class StringPool {
+
+    private static final int SIZE = 1 << 14;
+    // Long strings rarely repeat and would keep a lot of memory alive.
+    private static final int MAX_LENGTH = 1024;
+
+    private static final String[] TABLE = new String[SIZE];
+
+    public static String intern(String value) {
+        if (value.isEmpty() || value.length() > MAX_LENGTH) return value;
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (SIZE - 1);
+        String pooled = TABLE[index];
+        if (value.equals(pooled)) return pooled;
+        TABLE[index] = value;
+        return value;
+    }
+}
@@ -0,0 +1,45 @@
+package eu.tuxtown.crocus.impl.calendar;
+
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.time.*;
+import java.time.zone.ZoneRules;
+
+// Resolves instants in a time zone without building a ZonedDateTime. Only the offset is looked up in the zone rules,
+// which cache their transitions, days are computed from the epoch second.
+@NotNullByDefault
+public class ZoneTimes {
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    public static int offsetSeconds(Instant instant, ZoneId zone) {
+        if (zone instanceof ZoneOffset offset) return offset.getTotalSeconds();
+        return zone.getRules().getOffset(instant).getTotalSeconds();
+    }
+
+    // The local epoch day of an instant.
+    public static long epochDay(Instant instant, ZoneId zone) {
+        return Math.floorDiv(instant.getEpochSecond() + offsetSeconds(instant, zone), SECONDS_PER_DAY);
+    }
+
+    // The local epoch day of an instant. If the instant is at 00:00 local time, the previous day is returned.
+    public static long epochDayBefore(Instant instant, ZoneId zone) {
+        long localSecond = instant.getEpochSecond() + offsetSeconds(instant, zone);
+        long epochDay = Math.floorDiv(localSecond, SECONDS_PER_DAY);
+        return Math.floorMod(localSecond, SECONDS_PER_DAY) == 0 && instant.getNano() == 0 ? epochDay - 1 : epochDay;
+    }
+
+    public static LocalDate day(Instant instant, ZoneId zone) {
+        return LocalDate.ofEpochDay(epochDay(instant, zone));
+    }
+
+    // The first instant of a local day.
+    public static Instant startOfDay(LocalDate day, ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        if (rules.isFixedOffset()) {
+            return Instant.ofEpochSecond(day.toEpochDay() * SECONDS_PER_DAY - rules.getOffset(Instant.EPOCH).getTotalSeconds());
+        }
+        // Days in other zones may start after 00:00 if there is a gap at midnight.
+        return ZonedDateTime.of(day, LocalTime.MIDNIGHT, zone).toInstant();
+    }
+}
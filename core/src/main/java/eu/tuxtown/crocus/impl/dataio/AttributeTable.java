@@ -0,0 +1,68 @@
+package eu.tuxtown.crocus.impl.dataio;
+
+import eu.tuxtown.crocus.api.attribute.Attribute;
+import eu.tuxtown.crocus.api.attribute.Attributes;
+import eu.tuxtown.crocus.api.calendar.Event;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+// Name table of the attributes used in a stream of events. It is written once in the header of a stream, events in
+// the stream reference their attributes by index into the table instead of repeating the attribute names.
+@NotNullByDefault
+public final class AttributeTable {
+
+    private final List<Attribute<?>> attributes;
+    private final Map<Attribute<?>, Integer> indices;
+
+    private AttributeTable(List<Attribute<?>> attributes) {
+        this.attributes = attributes;
+        this.indices = HashMap.newHashMap(attributes.size());
+        for (Attribute<?> attribute : attributes) {
+            this.indices.put(attribute, this.indices.size());
+        }
+    }
+
+    // Builds the table of all attributes used by the given events. Attributes are sorted by name, so the same events
+    // always produce the same table.
+    public static AttributeTable of(Collection<Event> events) {
+        return new AttributeTable(events.stream()
+                .flatMap(event -> event.attributes().keySet().stream())
+                .distinct()
+                .sorted(Comparator.comparing(Attribute::name))
+                .toList());
+    }
+
+    public static AttributeTable read(DataInput in) throws IOException {
+        int size = BinaryIO.readVarInt(in);
+        List<Attribute<?>> attributes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String attributeName = BinaryIO.readString(in);
+            Attribute<?> attribute = Attributes.get(attributeName).orElse(null);
+            if (attribute == null) throw new IOException("Unknown attribute in serialized data: " + attributeName);
+            attributes.add(attribute);
+        }
+        return new AttributeTable(List.copyOf(attributes));
+    }
+
+    public void write(DataOutput out) throws IOException {
+        BinaryIO.writeVarInt(out, this.attributes.size());
+        for (Attribute<?> attribute : this.attributes) {
+            BinaryIO.writeString(out, attribute.name());
+        }
+    }
+
+    public int index(Attribute<?> attribute) {
+        Integer index = this.indices.get(attribute);
+        if (index == null) throw new IllegalArgumentException("Attribute not in attribute table: " + attribute.name());
+        return index;
+    }
+
+    public Attribute<?> get(int index) throws IOException {
+        if (index >= this.attributes.size()) throw new IOException("Invalid attribute reference in serialized data.");
+        return this.attributes.get(index);
+    }
+}
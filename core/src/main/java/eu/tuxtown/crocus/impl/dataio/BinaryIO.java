@@ -0,0 +1,49 @@
+package eu.tuxtown.crocus.impl.dataio;
+
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Primitive encodings shared by the binary formats.
+@NotNullByDefault
+public class BinaryIO {
+
+    // Unsigned LEB128, small values take a single byte.
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        if (value < 0) throw new IllegalArgumentException("Negative varint: " + value);
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) throw new IOException("Invalid varint.");
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint.");
+    }
+
+    // Unlike DataOutput#writeUTF, this has no length limit.
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, data.length);
+        out.write(data);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        byte[] data = new byte[readVarInt(in)];
+        in.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
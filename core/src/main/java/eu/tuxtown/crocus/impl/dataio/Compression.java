@@ -0,0 +1,65 @@
+package eu.tuxtown.crocus.impl.dataio;
+
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Transparent gzip compression. Compressed data is detected by the gzip magic number, so readers accept compressed and
+// uncompressed files alike.
+@NotNullByDefault
+public class Compression {
+
+    public static final String EXTENSION = ".gz";
+
+    private static final int GZIP_MAGIC = 0x1F8B;
+    private static final int BUFFER_SIZE = 65536;
+
+    public static boolean isCompressed(byte[] data) {
+        return data.length >= 2 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == GZIP_MAGIC;
+    }
+
+    /**
+     * Wraps the stream, so it is decompressed if it starts with the gzip magic number.
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        byte[] header = buffered.readNBytes(2);
+        buffered.reset();
+        return isCompressed(header) ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+    }
+
+    public static byte[] decompress(byte[] data) throws IOException {
+        if (!isCompressed(data)) return data;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data), BUFFER_SIZE)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Wraps the stream, so everything written to it is compressed. Closing the returned stream finishes the
+     * compressed data and closes the underlying stream.
+     */
+    public static OutputStream compress(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+
+    public static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (OutputStream out = compress(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static boolean hasExtension(String fileName) {
+        return fileName.endsWith(EXTENSION);
+    }
+
+    // Strips the compression extension from a file name, if present.
+    public static String baseName(String fileName) {
+        return hasExtension(fileName) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+    }
+}
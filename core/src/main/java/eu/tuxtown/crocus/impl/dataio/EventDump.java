@@ -0,0 +1,99 @@
+package eu.tuxtown.crocus.impl.dataio;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.impl.json.EventJson;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Binary event dumps. Events are stored like in the source cache, so times are stored as epoch seconds or epoch days
+// and attribute values use the tagged encoding from ValueIO. Binary dumps start with a magic number, which can never
+// start a json dump, so readers can accept both formats. Both formats may be gzip compressed.
+// The header holds the attribute table of the dump. Version 1 dumps had no table and are still read.
+@NotNullByDefault
+public class EventDump {
+
+    public static final String EXTENSION = ".bin";
+
+    private static final int MAGIC = 0x43524544; // CRED
+    private static final int VERSION = 2;
+
+    /**
+     * Writes an event list sorted by event id, like {@link EventJson#writeEvents(Writer, List)} does.
+     */
+    public static void writeEvents(OutputStream out, List<Event> events) throws IOException {
+        // Don't close the data output, that would close the underlying stream as well.
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        AttributeTable table = AttributeTable.of(events);
+        table.write(data);
+        BinaryIO.writeVarInt(data, events.size());
+        for (Event event : events.stream().sorted(Comparator.comparing(Event::id)).toList()) {
+            EventIO.writeEvent(data, event, table);
+        }
+        data.flush();
+    }
+
+    /**
+     * Writes an event dump file. The file is compressed if its name ends in {@link Compression#EXTENSION}. If
+     * {@code binary} is not set, the events are written as json in UTF-8.
+     */
+    public static void writeFile(Path path, List<Event> events, boolean binary, boolean compact) throws IOException {
+        OutputStream fileOut = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (OutputStream out = Compression.hasExtension(path.getFileName().toString()) ? Compression.compress(fileOut) : fileOut) {
+            if (binary) {
+                writeEvents(out, events);
+            } else {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                EventJson.writeEvents(writer, events, compact);
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Reads an event dump in either the binary or the json format. The charset is only used for json dumps.
+     */
+    public static List<Event> readEvents(InputStream in, Charset charset) throws IOException {
+        List<Event> events = new ArrayList<>();
+        readEvents(in, charset, events::add);
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Reads an event dump in either the binary or the json format and passes each event to the consumer as soon as it
+     * has been read. The charset is only used for json dumps.
+     */
+    public static void readEvents(InputStream in, Charset charset, Consumer<Event> consumer) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(Compression.decompress(in));
+        DataInputStream data = new DataInputStream(buffered);
+        buffered.mark(4);
+        byte[] header = buffered.readNBytes(4);
+        buffered.reset();
+        if (header.length != 4 || ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8 | (header[3] & 0xFF)) != MAGIC) {
+            EventJson.readEvents(new InputStreamReader(buffered, charset), consumer);
+            return;
+        }
+
+        data.skipNBytes(4);
+        int version = data.readUnsignedShort();
+        @Nullable AttributeTable table = switch (version) {
+            case 1 -> null;
+            case 2 -> AttributeTable.read(data);
+            default -> throw new IOException("Unsupported event dump version: " + version);
+        };
+        int count = BinaryIO.readVarInt(data);
+        for (int i = 0; i < count; i++) {
+            consumer.accept(EventIO.readEvent(data, table));
+        }
+    }
+}
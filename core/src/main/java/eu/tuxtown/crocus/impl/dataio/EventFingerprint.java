@@ -0,0 +1,50 @@
+package eu.tuxtown.crocus.impl.dataio;
+
+import eu.tuxtown.crocus.api.calendar.Event;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A 128-bit fingerprint of the content of an {@link Event}. It covers everything except the event id: name,
+ * description, location, url, time and all attributes (in their stored form). The fingerprint is the truncated
+ * SHA-256 hash of {@link EventIO#writeContent(DataOutput, Event)}, so it is stable across runs and JVMs.
+ */
+@NotNullByDefault
+public record EventFingerprint(long high, long low) {
+
+    public static EventFingerprint of(Event event) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            EventIO.writeContent(out, event);
+            out.close();
+            ByteBuffer hash = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray()));
+            return new EventFingerprint(hash.getLong(), hash.getLong());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+
+    public static EventFingerprint read(DataInput in) throws IOException {
+        long high = in.readLong();
+        long low = in.readLong();
+        return new EventFingerprint(high, low);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(this.high());
+        out.writeLong(this.low());
+    }
+
+    @Override
+    public String toString() {
+        return HexFormat.of().toHexDigits(this.high()) + HexFormat.of().toHexDigits(this.low());
+    }
+}
@@ -0,0 +1,153 @@
+package eu.tuxtown.crocus.impl.dataio;
+
+import eu.tuxtown.crocus.api.attribute.Attribute;
+import eu.tuxtown.crocus.api.attribute.AttributeAdapter;
+import eu.tuxtown.crocus.api.attribute.Attributes;
+import eu.tuxtown.crocus.api.calendar.Event;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Binary encoding of events. Attributes are encoded through their adapter like in AttributeMap. Events in a stream
+// reference their attributes through the AttributeTable of the stream. Only content written for fingerprints and
+// streams of older format versions contain the attribute names.
+@NotNullByDefault
+public class EventIO {
+
+    private static final int HAS_DESCRIPTION = 1;
+    private static final int HAS_LOCATION = 2;
+    private static final int HAS_URL = 4;
+
+    public static void writeEvent(DataOutput out, Event event, AttributeTable table) throws IOException {
+        BinaryIO.writeString(out, event.id());
+        writeContent(out, event, table);
+    }
+
+    // Writes everything except the event id. Two events with the same content always produce the same bytes, as
+    // attributes are written by name, independent of any table.
+    public static void writeContent(DataOutput out, Event event) throws IOException {
+        writeContent(out, event, null);
+    }
+
+    private static void writeContent(DataOutput out, Event event, @Nullable AttributeTable table) throws IOException {
+        BinaryIO.writeString(out, event.name());
+        int flags = (event.description().isPresent() ? HAS_DESCRIPTION : 0)
+                | (event.location().isPresent() ? HAS_LOCATION : 0)
+                | (event.url().isPresent() ? HAS_URL : 0);
+        out.writeByte(flags);
+        if (event.description().isPresent()) BinaryIO.writeString(out, event.description().get());
+        if (event.location().isPresent()) BinaryIO.writeString(out, event.location().get());
+        if (event.url().isPresent()) BinaryIO.writeString(out, event.url().get().toString());
+        writeTime(out, event.time());
+        writeAttributes(out, event.attributes(), table);
+    }
+
+    // Without a table, attributes are read by name, as written by older format versions.
+    public static Event readEvent(DataInput in, @Nullable AttributeTable table) throws IOException {
+        Event.Builder builder = Event.builder(BinaryIO.readString(in));
+        builder.name(BinaryIO.readString(in));
+        int flags = in.readUnsignedByte();
+        if ((flags & HAS_DESCRIPTION) != 0) builder.description(BinaryIO.readString(in));
+        if ((flags & HAS_LOCATION) != 0) builder.location(BinaryIO.readString(in));
+        if ((flags & HAS_URL) != 0) builder.url(BinaryIO.readString(in));
+        builder.times(readTime(in));
+        for (Map.Entry<Attribute<?>, ?> entry : readAttributes(in, table).entrySet()) {
+            uncheckedAttribute(builder, entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    public static void writeTime(DataOutput out, Event.EventTime time) throws IOException {
+        switch (time) {
+            case Event.EventTime.OpenEnd openEnd -> {
+                out.writeByte(0);
+                writeInstant(out, openEnd.start());
+            }
+            case Event.EventTime.Timed timed -> {
+                out.writeByte(1);
+                writeInstant(out, timed.start());
+                writeInstant(out, timed.end());
+            }
+            case Event.EventTime.AllDay allDay -> {
+                out.writeByte(2);
+                out.writeLong(allDay.start().toEpochDay());
+                out.writeLong(allDay.end().toEpochDay());
+            }
+        }
+    }
+
+    public static Event.EventTime readTime(DataInput in) throws IOException {
+        try {
+            int typ = in.readUnsignedByte();
+            return switch (typ) {
+                case 0 -> new Event.EventTime.OpenEnd(readInstant(in));
+                case 1 -> new Event.EventTime.Timed(readInstant(in), readInstant(in));
+                case 2 -> new Event.EventTime.AllDay(LocalDate.ofEpochDay(in.readLong()), LocalDate.ofEpochDay(in.readLong()));
+                default -> throw new IOException("Invalid serialized event time.");
+            };
+        } catch (DateTimeException e) {
+            throw new IOException("Invalid serialized event time.", e);
+        }
+    }
+
+    // Without a table, attributes are written by name.
+    @SuppressWarnings("unchecked")
+    public static void writeAttributes(DataOutput out, Map<Attribute<?>, ?> attributes, @Nullable AttributeTable table) throws IOException {
+        List<Attribute<?>> keys = attributes.keySet().stream().sorted(Comparator.comparing(Attribute::name)).toList();
+        BinaryIO.writeVarInt(out, keys.size());
+        for (Attribute<?> attribute : keys) {
+            if (table != null) {
+                BinaryIO.writeVarInt(out, table.index(attribute));
+            } else {
+                BinaryIO.writeString(out, attribute.name());
+            }
+            ValueIO.writeValue(out, ((AttributeAdapter<@NotNull Object>) attribute.adapter()).store(attributes.get(attribute)));
+        }
+    }
+
+    public static Map<Attribute<?>, ?> readAttributes(DataInput in, @Nullable AttributeTable table) throws IOException {
+        int size = BinaryIO.readVarInt(in);
+        if (size == 0) return Map.of();
+        Map<Attribute<?>, Object> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Attribute<?> attribute = table != null ? table.get(BinaryIO.readVarInt(in)) : readAttributeName(in);
+            Object value = attribute.adapter().load(ValueIO.readValue(in));
+            if (value != null) map.put(attribute, value);
+        }
+        return Map.copyOf(map);
+    }
+
+    private static Attribute<?> readAttributeName(DataInput in) throws IOException {
+        String attributeName = BinaryIO.readString(in);
+        Attribute<?> attribute = Attributes.get(attributeName).orElse(null);
+        if (attribute == null) throw new IOException("Unknown attribute in serialized data: " + attributeName);
+        return attribute;
+    }
+
+    private static void writeInstant(DataOutput out, Instant instant) throws IOException {
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    private static Instant readInstant(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    private static <T> void uncheckedAttribute(Event.Builder builder, Attribute<?> attribute, Object value) {
+        //noinspection unchecked
+        builder.attribute((Attribute<T>) attribute, (T) value);
+    }
+}
@@ -2,9 +2,10 @@ package eu.tuxtown.crocus.impl.dataio;
 
 import eu.tuxtown.crocus.api.attribute.AttributeAdapter;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInput;
-import java.io.ObjectOutput;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -12,34 +13,41 @@ import java.util.List;
 
 public class ValueIO {
 
-    private static final BigInteger INT_MIN = BigInteger.valueOf(Integer.MIN_VALUE);
-    private static final BigInteger INT_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
-    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
-    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+    // writeUTF can hold at most 65535 bytes, which is always enough for strings up to this length.
+    private static final int MAX_UTF_LENGTH = 65535 / 3;
 
-    public static void writeValue(ObjectOutput out, AttributeAdapter.Value<?> value) throws IOException {
+    public static void writeValue(DataOutput out, AttributeAdapter.Value<?> value) throws IOException {
         switch (value) {
             case AttributeAdapter.NullValue nullValue -> out.writeByte(0xFF);
             case AttributeAdapter.BooleanValue booleanValue -> out.writeByte(booleanValue.value() ? 1 : 0);
             case AttributeAdapter.IntegralValue integralValue -> {
-                if (integralValue.value().compareTo(INT_MIN) >= 0 && integralValue.value().compareTo(INT_MAX) <= 0) {
-                    out.writeByte(2);
-                    out.writeInt(integralValue.value().intValue());
-                } else if (integralValue.value().compareTo(LONG_MIN) >= 0 && integralValue.value().compareTo(LONG_MAX) <= 0) {
-                    out.writeByte(3);
-                    out.writeLong(integralValue.value().longValue());
+                // bitLength excludes the sign bit
+                if (integralValue.value().bitLength() < 64) {
+                    writeLong(out, integralValue.value().longValue());
                 } else {
-                    out.writeByte(4);
-                    out.writeObject((BigInteger) integralValue.value());
+                    out.writeByte(7);
+                    writeBytes(out, integralValue.value().toByteArray());
                 }
             }
+            // Same encoding as an integral value with the same value, so both have the same fingerprint.
+            case AttributeAdapter.LongValue longValue -> writeLong(out, longValue.longValue());
             case AttributeAdapter.DecimalValue decimalValue -> {
-                out.writeByte(5);
-                out.writeObject((BigDecimal) decimalValue.value());
+                out.writeByte(8);
+                out.writeInt(decimalValue.value().scale());
+                writeBytes(out, decimalValue.value().unscaledValue().toByteArray());
+            }
+            case AttributeAdapter.DoubleValue doubleValue -> {
+                out.writeByte(10);
+                out.writeDouble(doubleValue.doubleValue());
             }
             case AttributeAdapter.StringValue stringValue -> {
-                out.writeByte(6);
-                out.writeUTF(stringValue.value());
+                if (stringValue.value().length() <= MAX_UTF_LENGTH) {
+                    out.writeByte(6);
+                    out.writeUTF(stringValue.value());
+                } else {
+                    out.writeByte(9);
+                    BinaryIO.writeString(out, stringValue.value());
+                }
             }
             case AttributeAdapter.PackedValue packedValue -> {
                 out.writeByte(0xFE);
@@ -51,18 +59,26 @@ public class ValueIO {
         }
     }
 
-    public static AttributeAdapter.Value<?> readValue(ObjectInput in) throws IOException, ClassNotFoundException {
+    public static AttributeAdapter.Value<?> readValue(DataInput in) throws IOException {
         try {
             int typ = in.readUnsignedByte();
             return switch (typ) {
                 case 0xFF -> AttributeAdapter.NullValue.INSTANCE;
                 case 0 -> new AttributeAdapter.BooleanValue(false);
                 case 1 -> new AttributeAdapter.BooleanValue(true);
-                case 2 -> new AttributeAdapter.IntegralValue(in.readInt());
-                case 3 -> new AttributeAdapter.IntegralValue(in.readLong());
-                case 4 -> new AttributeAdapter.IntegralValue((BigInteger) in.readObject());
-                case 5 -> new AttributeAdapter.DecimalValue((BigDecimal) in.readObject());
+                case 2 -> new AttributeAdapter.LongValue(in.readInt());
+                case 3 -> new AttributeAdapter.LongValue(in.readLong());
+                // 4 and 5 are only written by old versions that used object serialization for big numbers.
+                case 4 -> new AttributeAdapter.IntegralValue((BigInteger) readLegacyObject(in));
+                case 5 -> new AttributeAdapter.DecimalValue((BigDecimal) readLegacyObject(in));
                 case 6 -> new AttributeAdapter.StringValue(in.readUTF());
+                case 7 -> new AttributeAdapter.IntegralValue(new BigInteger(readBytes(in)));
+                case 8 -> {
+                    int scale = in.readInt();
+                    yield new AttributeAdapter.DecimalValue(new BigDecimal(new BigInteger(readBytes(in)), scale));
+                }
+                case 9 -> new AttributeAdapter.StringValue(BinaryIO.readString(in));
+                case 10 -> new AttributeAdapter.DoubleValue(in.readDouble());
                 case 0xFE -> {
                     int size = in.readInt();
                     List<AttributeAdapter.Value<?>> members = new ArrayList<>(size);
@@ -71,7 +87,39 @@ public class ValueIO {
                 }
                 default -> throw new IOException("Invalid serialized value.");
             };
-        } catch (ClassCastException e) {
+        } catch (ClassCastException | IllegalArgumentException e) {
+            throw new IOException("Invalid serialized value.", e);
+        }
+    }
+
+    private static void writeLong(DataOutput out, long value) throws IOException {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            out.writeByte(2);
+            out.writeInt((int) value);
+        } else {
+            out.writeByte(3);
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeBytes(DataOutput out, byte[] data) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        int len = in.readInt();
+        if (len <= 0) throw new IOException("Invalid serialized value.");
+        byte[] data = new byte[len];
+        in.readFully(data);
+        return data;
+    }
+
+    private static Object readLegacyObject(DataInput in) throws IOException {
+        if (!(in instanceof ObjectInput objectIn)) throw new IOException("Invalid serialized value.");
+        try {
+            return objectIn.readObject();
+        } catch (ClassNotFoundException e) {
             throw new IOException("Invalid serialized value.", e);
         }
     }
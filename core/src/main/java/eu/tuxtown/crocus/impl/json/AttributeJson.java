@@ -42,7 +42,9 @@ public class AttributeJson {
            case AttributeAdapter.NullValue nullValue -> JsonNull.INSTANCE;
            case AttributeAdapter.BooleanValue booleanValue -> new JsonPrimitive(value.booleanValue());
            case AttributeAdapter.IntegralValue integralValue -> new JsonPrimitive(value.integralValue());
+           case AttributeAdapter.LongValue longValue -> new JsonPrimitive(longValue.longValue());
            case AttributeAdapter.DecimalValue decimalValue -> new JsonPrimitive(value.decimalValue());
+           case AttributeAdapter.DoubleValue doubleValue -> new JsonPrimitive(doubleValue.doubleValue());
            case AttributeAdapter.StringValue stringValue -> new JsonPrimitive(value.stringValue());
            case AttributeAdapter.PackedValue packedValue -> {
                JsonArray array = new JsonArray();
@@ -65,9 +67,19 @@ public class AttributeJson {
                } else if (number instanceof BigDecimal decimal) {
                    return new AttributeAdapter.DecimalValue(decimal.stripTrailingZeros());
                } else if (number instanceof Byte || number instanceof Short || number instanceof Integer || number instanceof Long) {
-                   return new AttributeAdapter.IntegralValue(number.longValue());
+                   return new AttributeAdapter.LongValue(number.longValue());
                } else {
-                   return new AttributeAdapter.DecimalValue(number.doubleValue());
+                   // Numbers read from json are lazily parsed, integers that fit into a long don't need a double.
+                   String string = value.getAsString();
+                   if (isPlainInteger(string)) {
+                       try {
+                           return new AttributeAdapter.LongValue(Long.parseLong(string));
+                       } catch (NumberFormatException e) {
+                           return new AttributeAdapter.IntegralValue(new BigInteger(string));
+                       }
+                   }
+                   double decimal = number.doubleValue();
+                   return Double.isFinite(decimal) ? new AttributeAdapter.DoubleValue(decimal) : new AttributeAdapter.DecimalValue(new BigDecimal(string).stripTrailingZeros());
                }
            } else {
                return new AttributeAdapter.StringValue(value.getAsString());
@@ -80,4 +92,14 @@ public class AttributeJson {
            return AttributeAdapter.NullValue.INSTANCE;
        }
    }
+
+   private static boolean isPlainInteger(String string) {
+       int start = string.startsWith("-") ? 1 : 0;
+       if (start >= string.length()) return false;
+       for (int i = start; i < string.length(); i++) {
+           char chr = string.charAt(i);
+           if (chr < '0' || chr > '9') return false;
+       }
+       return true;
+   }
 }
@@ -1,6 +1,9 @@
 package eu.tuxtown.crocus.impl.json;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import eu.tuxtown.crocus.api.attribute.Attribute;
 import eu.tuxtown.crocus.api.calendar.Event;
 import org.jetbrains.annotations.NotNullByDefault;
@@ -8,9 +11,8 @@ import org.jetbrains.annotations.NotNullByDefault;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Consumer;
 
 @NotNullByDefault
 public class EventJson {
@@ -27,9 +29,25 @@ public class EventJson {
     }
 
     public static List<Event> readEvents(Reader reader) throws IOException {
+        List<Event> events = new ArrayList<>();
+        readEvents(reader, events::add);
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Reads an event list and passes each event to the consumer as soon as it has been read. Only a single event is
+     * kept in memory at a time.
+     */
+    public static void readEvents(Reader reader, Consumer<Event> consumer) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setStrictness(Strictness.LENIENT);
         try {
-            JsonArray json = GSON.fromJson(reader, JsonArray.class);
-            return eventsFromJson(json);
+            if (jsonReader.peek() == JsonToken.NULL) throw new JsonSyntaxException("Expected an event list, got null.");
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                consumer.accept(eventFromJson(JsonParser.parseReader(jsonReader).getAsJsonObject()));
+            }
+            jsonReader.endArray();
         } catch (JsonIOException e) {
             if (e.getCause() instanceof IOException ioex) {
                 throw ioex;
@@ -40,8 +58,34 @@ public class EventJson {
     }
 
     public static void writeEvents(Writer writer, List<Event> events) throws IOException {
-        JsonArray json = eventsToJson(events);
-        writer.write(GSON.toJson(json) + "\n");
+        writeEvents(writer, events, false);
+    }
+
+    /**
+     * Writes an event list sorted by event id. Events are written one by one. If {@code compact} is set, no
+     * whitespace is written between the elements.
+     */
+    public static void writeEvents(Writer writer, List<Event> events, boolean compact) throws IOException {
+        // Don't close the json writer, that would close the underlying writer as well.
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setHtmlSafe(false);
+        jsonWriter.setSerializeNulls(true);
+        if (!compact) jsonWriter.setIndent("  ");
+        try {
+            jsonWriter.beginArray();
+            for (Event event : events.stream().sorted(Comparator.comparing(Event::id)).toList()) {
+                GSON.toJson(eventToJson(event), jsonWriter);
+            }
+            jsonWriter.endArray();
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException ioex) {
+                throw ioex;
+            } else {
+                throw e;
+            }
+        }
+        jsonWriter.flush();
+        writer.write("\n");
     }
 
     public static JsonArray eventsToJson(List<Event> events) {
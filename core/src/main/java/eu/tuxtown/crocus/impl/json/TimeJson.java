@@ -4,6 +4,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import eu.tuxtown.crocus.api.calendar.Event;
 import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -69,18 +70,169 @@ public class TimeJson {
         }
     }
 
+    // Instants from 0000-01-01T00:00:00Z (inclusive) to 10000-01-01T00:00:00Z (exclusive) have a four-digit year.
+    private static final long MIN_FAST_SECOND = -62167219200L;
+    private static final long MAX_FAST_SECOND = 253402300800L;
+    private static final long DAYS_0000_TO_1970 = 719528;
+    private static final long DAYS_PER_CYCLE = 146097;
+    private static final int SECONDS_PER_DAY = 86400;
+
     public static JsonPrimitive instantToJson(Instant instant) {
-        return new JsonPrimitive(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC)));
+        return new JsonPrimitive(formatInstant(instant));
     }
 
     public static Instant instantFromJson(JsonPrimitive json) {
-        TemporalAccessor temporal = INPUT_FORMAT.parse(json.getAsString());
+        return parseInstant(json.getAsString());
+    }
+
+    /**
+     * Formats an instant the same way as {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME} does in UTC. Instants with a
+     * four-digit year are formatted without going through {@link DateTimeFormatter}.
+     */
+    public static String formatInstant(Instant instant) {
+        long epochSecond = instant.getEpochSecond();
+        if (epochSecond < MIN_FAST_SECOND || epochSecond >= MAX_FAST_SECOND) return formatInstantGeneric(instant);
+
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        // Same algorithm as LocalDate.ofEpochDay with years starting in march, so the leap day is at the end.
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / DAYS_PER_CYCLE - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+        }
+        long yearEst = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int year = (int) (yearEst + adjust + marchMonth0 / 10);
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+
+        char[] chars = new char[30];
+        writeDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        writeDigits(chars, 5, month, 2);
+        chars[7] = '-';
+        writeDigits(chars, 8, day, 2);
+        chars[10] = 'T';
+        writeDigits(chars, 11, secondOfDay / 3600, 2);
+        chars[13] = ':';
+        writeDigits(chars, 14, (secondOfDay / 60) % 60, 2);
+        chars[16] = ':';
+        writeDigits(chars, 17, secondOfDay % 60, 2);
+        int length = 19;
+        int nano = instant.getNano();
+        if (nano != 0) {
+            // The fraction is written with as few digits as possible.
+            chars[19] = '.';
+            writeDigits(chars, 20, nano, 9);
+            length = 29;
+            while (chars[length - 1] == '0') length--;
+        }
+        chars[length++] = 'Z';
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Parses an instant in any format supported by {@link #INPUT_FORMAT}. The common UTC form
+     * {@code yyyy-MM-ddTHH:mm:ss[.fffffffff]Z} is parsed without going through {@link DateTimeFormatter}.
+     */
+    public static Instant parseInstant(String string) {
+        Instant instant = parseInstantFast(string);
+        return instant != null ? instant : parseInstantGeneric(string);
+    }
+
+    /**
+     * Formats an instant using {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME}.
+     */
+    public static String formatInstantGeneric(Instant instant) {
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+
+    /**
+     * Parses an instant using {@link #INPUT_FORMAT}.
+     */
+    public static Instant parseInstantGeneric(String string) {
+        TemporalAccessor temporal = INPUT_FORMAT.parse(string);
         return Instant.ofEpochSecond(
                 temporal.getLong(ChronoField.INSTANT_SECONDS),
                 temporal.getLong(ChronoField.NANO_OF_SECOND)
         );
     }
 
+    // Returns null for everything that is not in the common UTC form, so it is passed on to the generic parser.
+    private static @Nullable Instant parseInstantFast(String string) {
+        int length = string.length();
+        if (length < 20 || length > 30 || string.charAt(length - 1) != 'Z') return null;
+        if (string.charAt(4) != '-' || string.charAt(7) != '-' || (string.charAt(10) != 'T' && string.charAt(10) != 't') || string.charAt(13) != ':' || string.charAt(16) != ':') return null;
+        int year = readDigits(string, 0, 4);
+        int month = readDigits(string, 5, 2);
+        int day = readDigits(string, 8, 2);
+        int hour = readDigits(string, 11, 2);
+        int minute = readDigits(string, 14, 2);
+        int second = readDigits(string, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return null;
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) return null;
+
+        int nano = 0;
+        if (length != 20) {
+            int digits = length - 21;
+            if (string.charAt(19) != '.' || digits < 1) return null;
+            nano = readDigits(string, 20, digits);
+            if (nano < 0) return null;
+            for (int i = digits; i < 9; i++) nano *= 10;
+        }
+
+        // Same algorithm as LocalDate.toEpochDay
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) total--;
+        }
+        long epochDay = total - DAYS_0000_TO_1970;
+        return Instant.ofEpochSecond(epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second, nano);
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // Returns -1 if the substring contains anything other than ascii digits.
+    private static int readDigits(String string, int offset, int digits) {
+        int value = 0;
+        for (int i = offset; i < offset + digits; i++) {
+            char chr = string.charAt(i);
+            if (chr < '0' || chr > '9') return -1;
+            value = value * 10 + (chr - '0');
+        }
+        return value;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
     public static JsonPrimitive dateToJson(LocalDate date) {
         return new JsonPrimitive(DateTimeFormatter.ISO_LOCAL_DATE.format(date));
     }
@@ -0,0 +1,184 @@
+package eu.tuxtown.crocus.impl.resource;
+
+import eu.tuxtown.crocus.core.CrocusRuntime;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+// On-disk cache for HTTP responses. Each entry is a single file holding the validators and the response body, so
+// entries can be replaced atomically. There is one entry per URL, a digest of the request headers it was fetched with
+// is kept in the entry as its variant. Entries that have not been used for some time are removed.
+@NotNullByDefault
+final class HttpCache {
+
+    private static final int MAGIC = 0x43524843; // CRHC
+    private static final int VERSION = 2;
+    private static final int DIGEST_OFFSET = 8;
+    private static final int DIGEST_LENGTH = 64;
+
+    private static final Duration MAX_UNUSED = Duration.ofDays(30);
+    private static final Duration PRUNE_INTERVAL = Duration.ofDays(1);
+
+    private static @Nullable Instant lastPrune = null;
+
+    private HttpCache() {}
+
+    public static String key(String request) {
+        return HexFormat.of().formatHex(sha256(request.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Gets the entry for the given key if it was stored for the same variant.
+    public static @Nullable Entry get(String key, String variant) {
+        Path file = directory().resolve(key);
+        @Nullable Entry entry;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            entry = readHeader(file, in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            entry = null;
+        }
+        if (entry == null) {
+            // Broken cache entry, remove it, so the next response can be cached again.
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                //
+            }
+            return null;
+        }
+        if (!entry.variant().equals(variant)) return null;
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            //
+        }
+        return entry;
+    }
+
+    public static Entry put(String key, String variant, InputStream body, @Nullable String etag, @Nullable String lastModified) throws IOException {
+        Path dir = directory();
+        Files.createDirectories(dir);
+        prune(dir);
+        Path file = dir.resolve(key);
+        Path tempFile = Files.createTempFile(dir, key, ".tmp");
+        try {
+            MessageDigest md = sha256();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                // The digest is only known once the body has been written, reserve its space in the header.
+                out.writeUTF("0".repeat(DIGEST_LENGTH));
+                out.writeUTF(etag == null ? "" : etag);
+                out.writeUTF(lastModified == null ? "" : lastModified);
+                out.writeUTF(variant);
+                new DigestInputStream(body, md).transferTo(out);
+            }
+            String digest = HexFormat.of().formatHex(md.digest());
+            ByteArrayOutputStream digestBytes = new ByteArrayOutputStream();
+            new DataOutputStream(digestBytes).writeUTF(digest);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(digestBytes.toByteArray());
+                long position = DIGEST_OFFSET;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new Entry(file, variant, digest, etag, lastModified);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static Path directory() {
+        return CrocusRuntime.get().path().resolve("http-cache");
+    }
+
+    // Removes entries and leftover temporary files that have not been used for some time. Runs at most once a day.
+    private static synchronized void prune(Path dir) {
+        Instant now = Instant.now();
+        if (lastPrune != null && lastPrune.plus(PRUNE_INTERVAL).isAfter(now)) return;
+        lastPrune = now;
+        FileTime limit = FileTime.from(now.minus(MAX_UNUSED));
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(limit) < 0) Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    //
+                }
+            }
+        } catch (IOException e) {
+            //
+        }
+    }
+
+    private static @Nullable Entry readHeader(Path file, DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) return null;
+        if (in.readInt() != VERSION) return null;
+        String digest = in.readUTF();
+        String etag = in.readUTF();
+        String lastModified = in.readUTF();
+        String variant = in.readUTF();
+        return new Entry(file, variant, digest, etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified);
+    }
+
+    private static byte[] sha256(byte[] data) {
+        return sha256().digest(data);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+
+    /**
+     * A cached response.
+     *
+     * @param variant      The digest of the request headers the response was fetched with.
+     * @param digest       The SHA-256 digest of the response body.
+     * @param etag         The {@code ETag} header of the response, if any.
+     * @param lastModified The {@code Last-Modified} header of the response, if any.
+     */
+    public record Entry(Path file, String variant, String digest, @Nullable String etag, @Nullable String lastModified) {
+
+        public boolean canValidate() {
+            return this.etag() != null || this.lastModified() != null;
+        }
+
+        // Fails if the entry was replaced by a response with different content.
+        public InputStream openStream() throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file())));
+            try {
+                Entry stored = readHeader(this.file(), in);
+                if (stored == null) throw new IOException("Invalid http cache entry: " + this.file());
+                if (!stored.digest().equals(this.digest())) throw new IOException("Http cache entry was replaced: " + this.file());
+                return in;
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+    }
+}
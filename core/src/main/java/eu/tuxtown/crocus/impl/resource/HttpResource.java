@@ -15,20 +15,30 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 @NotNullByDefault
-@SuppressWarnings("ClassCanBeRecord")
 public class HttpResource implements Resource {
 
+    // Sources read the resource right after asking for its version. Within this time, the response fetched for the
+    // version is used to read the resource, so it is only downloaded once and the version matches the content.
+    private static final long FETCHED_MAX_AGE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
     private final URI uri;
     private final HttpClient client;
     private final List<Map.Entry<String, String>> headers;
+    private final boolean useCache;
+    private @Nullable HttpCache.Entry fetched;
+    private long fetchedAt;
 
-    private HttpResource(URI uri, HttpClient client, List<Map.Entry<String, String>> headers) {
+    private HttpResource(URI uri, HttpClient client, List<Map.Entry<String, String>> headers, boolean useCache) {
         this.uri = uri;
         this.client = client;
         this.headers = headers;
+        this.useCache = useCache;
+        this.fetched = null;
+        this.fetchedAt = 0;
     }
 
     @Override
@@ -38,12 +48,36 @@ public class HttpResource implements Resource {
 
     @Override
     public InputStream openStream() throws IOException {
-        return this.sendRequest(HttpRequest.Builder::GET, HttpResponse.BodyHandlers.ofInputStream()).body();
+        if (this.useCache) {
+            HttpCache.Entry entry = this.takeFetched();
+            if (entry != null) try {
+                return entry.openStream();
+            } catch (IOException e) {
+                // The entry was replaced in the meantime, fetch it again.
+            }
+            return this.fetch().openStream();
+        } else {
+            return this.sendRequest(HttpRequest.Builder::GET, HttpResponse.BodyHandlers.ofInputStream(), false).body();
+        }
+    }
+
+    @Override
+    public Optional<String> contentVersion() throws IOException {
+        if (this.useCache) {
+            HttpCache.Entry entry = this.fetch();
+            synchronized (this) {
+                this.fetched = entry;
+                this.fetchedAt = System.nanoTime();
+            }
+            return Optional.of(entry.digest());
+        } else {
+            return Optional.empty();
+        }
     }
 
     @Override
     public Optional<String> probeContentType() throws IOException {
-        HttpResponse<Void> response = this.sendRequest(HttpRequest.Builder::HEAD, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = this.sendRequest(HttpRequest.Builder::HEAD, HttpResponse.BodyHandlers.discarding(), false);
         return response.headers().firstValue("Content-Type");
     }
 
@@ -52,7 +86,39 @@ public class HttpResource implements Resource {
         return this.uri.toString();
     }
 
-    private <T> HttpResponse<T> sendRequest(Consumer<HttpRequest.Builder> method, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+    // Gets the entry fetched for the last content version, if it is recent enough. Each entry is only used once.
+    private synchronized HttpCache.@Nullable Entry takeFetched() {
+        HttpCache.Entry entry = this.fetched;
+        this.fetched = null;
+        if (entry == null || System.nanoTime() - this.fetchedAt > FETCHED_MAX_AGE_NANOS) return null;
+        return entry;
+    }
+
+    // Sends a conditional request if there is a cached response and updates the cache with the response.
+    private HttpCache.Entry fetch() throws IOException {
+        // Headers may hold credentials, so only their digest is stored in the cache.
+        StringBuilder headers = new StringBuilder();
+        for (Map.Entry<String, String> entry : this.headers) {
+            headers.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        String key = HttpCache.key(this.uri.toString());
+        String variant = HttpCache.key(headers.toString());
+        HttpCache.Entry cached = HttpCache.get(key, variant);
+        boolean conditional = cached != null && cached.canValidate();
+        HttpResponse<InputStream> response = this.sendRequest(builder -> {
+            builder.GET();
+            if (conditional && cached.etag() != null) builder.header("If-None-Match", cached.etag());
+            if (conditional && cached.lastModified() != null) builder.header("If-Modified-Since", cached.lastModified());
+        }, HttpResponse.BodyHandlers.ofInputStream(), conditional);
+        try (InputStream body = response.body()) {
+            if (conditional && response.statusCode() == 304) {
+                return cached;
+            }
+            return HttpCache.put(key, variant, body, response.headers().firstValue("ETag").orElse(null), response.headers().firstValue("Last-Modified").orElse(null));
+        }
+    }
+
+    private <T> HttpResponse<T> sendRequest(Consumer<HttpRequest.Builder> method, HttpResponse.BodyHandler<T> bodyHandler, boolean allowNotModified) throws IOException {
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(this.uri);
         method.accept(requestBuilder);
         for (Map.Entry<String, String> entry : this.headers) {
@@ -66,7 +132,8 @@ public class HttpResource implements Resource {
             Thread.currentThread().interrupt();
             throw new IOException("Interrupt during HTTP request.", e);
         }
-        if ((response.statusCode() / 100) != 2) {
+        if ((response.statusCode() / 100) != 2 && !(allowNotModified && response.statusCode() == 304)) {
+            if (response.body() instanceof InputStream stream) stream.close();
             throw new IOException("Got HTTP response code " + response.statusCode() + ": " + this.uri);
         }
         return response;
@@ -83,6 +150,7 @@ public class HttpResource implements Resource {
         private final Map<String, PasswordAuthentication> authenticationMap;
         private final List<Resource> trustedCertificates;
         private boolean followRedirects;
+        private boolean useCache;
 
         private Builder(URI uri) {
             this.uri = uri;
@@ -93,6 +161,7 @@ public class HttpResource implements Resource {
             this.authenticationMap = new HashMap<>();
             this.trustedCertificates = new ArrayList<>();
             this.followRedirects = true;
+            this.useCache = true;
         }
 
         public void header(String key, String value) {
@@ -105,6 +174,10 @@ public class HttpResource implements Resource {
             this.followRedirects = false;
         }
 
+        public void noCache() {
+            this.useCache = false;
+        }
+
         public void authenticate(String host, String username, String password) {
             Objects.requireNonNull(host);
             Objects.requireNonNull(username);
@@ -131,7 +204,7 @@ public class HttpResource implements Resource {
                 throw new RuntimeException("Failed to set up ssl context for http resource", e);
             }
             HttpClient client = httpBuilder.build();
-            return new HttpResource(this.uri, client, List.copyOf(this.headers));
+            return new HttpResource(this.uri, client, List.copyOf(this.headers), this.useCache);
         }
     }
 
@@ -2,16 +2,16 @@ package eu.tuxtown.crocus.impl.resource;
 
 import eu.tuxtown.crocus.api.resource.Resource;
 import eu.tuxtown.crocus.core.CrocusRuntime;
+import eu.tuxtown.crocus.impl.dataio.Compression;
 import org.jetbrains.annotations.NotNullByDefault;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.Reader;
+import java.io.*;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Optional;
 
 @NotNullByDefault
@@ -22,19 +22,40 @@ public record PathResource(Path path) implements Resource {
         return this.path.toUri();
     }
 
+    // Files ending in .gz are decompressed, if they actually contain gzip data.
     @Override
     public InputStream openStream() throws IOException {
-        return Files.newInputStream(this.resolvePath());
+        Path path = this.resolvePath();
+        if (Compression.hasExtension(path.getFileName().toString())) {
+            return Compression.decompress(Files.newInputStream(path));
+        } else {
+            return Files.newInputStream(path);
+        }
     }
 
     @Override
     public Reader openReader(Charset charset) throws IOException {
-        return Files.newBufferedReader(this.resolvePath(), charset);
+        Path path = this.resolvePath();
+        if (Compression.hasExtension(path.getFileName().toString())) {
+            return new BufferedReader(new InputStreamReader(this.openStream(), charset));
+        } else {
+            return Files.newBufferedReader(path, charset);
+        }
     }
 
     @Override
     public Optional<String> probeContentType() throws IOException {
-        return Optional.ofNullable(Files.probeContentType(this.resolvePath()));
+        // Probe the content type of the decompressed data
+        Path path = this.resolvePath();
+        String fileName = path.getFileName().toString();
+        if (Compression.hasExtension(fileName)) path = path.resolveSibling(Compression.baseName(fileName));
+        return Optional.ofNullable(Files.probeContentType(path));
+    }
+
+    @Override
+    public Optional<String> contentVersion() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(this.resolvePath(), BasicFileAttributes.class);
+        return Optional.of(attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
     }
 
     @Override
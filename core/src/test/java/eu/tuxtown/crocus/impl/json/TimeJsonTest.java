@@ -0,0 +1,102 @@
+package eu.tuxtown.crocus.impl.json;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The fast codec must behave exactly like the generic one, which goes through DateTimeFormatter.
+class TimeJsonTest {
+
+    private static final long MIN_SECOND = Instant.parse("0000-01-01T00:00:00Z").getEpochSecond();
+    private static final long MAX_SECOND = Instant.parse("9999-12-31T23:59:59Z").getEpochSecond();
+
+    @Test
+    void randomInstants() {
+        Random random = new Random(0x43524F43);
+        for (int i = 0; i < 100000; i++) {
+            long second = random.nextLong(MIN_SECOND, MAX_SECOND + 1);
+            // Mix full nanos with millis, micros and whole seconds, so every fraction length is formatted.
+            int nano = switch (random.nextInt(4)) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(1000) * 1000000;
+                case 2 -> random.nextInt(1000000) * 1000;
+                default -> random.nextInt(1000000000);
+            };
+            assertRoundTrip(Instant.ofEpochSecond(second, nano));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0000-01-01T00:00:00Z",
+            "0000-02-29T12:00:00Z",
+            "1970-01-01T00:00:00Z",
+            "1969-12-31T23:59:59.999999999Z",
+            "2024-02-29T00:00:00Z",
+            "2025-06-15T08:30:00.1Z",
+            "2025-06-15T08:30:00.123456Z",
+            "9999-12-31T23:59:59Z",
+            "9999-12-31T23:59:59.999999999Z",
+    })
+    void boundaries(String string) {
+        Instant instant = Instant.parse(string);
+        assertEquals(string, TimeJson.formatInstant(instant));
+        assertRoundTrip(instant);
+    }
+
+    @Test
+    void outsideFourDigitYears() {
+        assertRoundTrip(Instant.parse("0000-01-01T00:00:00Z").minusNanos(1));
+        assertRoundTrip(Instant.parse("+10000-01-01T00:00:00Z"));
+        assertRoundTrip(Instant.parse("-0001-12-31T23:59:59.5Z"));
+        assertRoundTrip(Instant.parse("+99999-12-31T23:59:59Z"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2025-06-15T08:30:00+02:00",
+            "2025-06-15T08:30:00.5-05:30",
+            "2025-06-15T08:30:00+00:00",
+            "2025-06-15T08:30:00Europe/Berlin",
+            "2025-06-15T08:30:00/Europe/Berlin",
+            "2025-06-15t08:30:00Z",
+            "2025-06-15T08:30:00.000Z",
+            // Accepted by the generic parser only.
+            "2025-06-15T08:30Z",
+            "2025-06-15T08:30:00.Z",
+            "2025-06-15T24:00:00Z",
+            // Invalid dates are not parsed by the fast path, the generic parser resolves them.
+            "2025-02-29T00:00:00Z",
+            "2025-04-31T00:00:00Z",
+    })
+    void parsedLikeGeneric(String string) {
+        assertEquals(TimeJson.parseInstantGeneric(string), TimeJson.parseInstant(string));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2025-06-15T08:30:00z",
+            "2025-06-15T08:30:00.1234567890Z",
+            "2025-13-01T08:30:00Z",
+            "2025-06-15T25:00:00Z",
+            "2025-06-15 08:30:00Z",
+            "+2025-06-15T08:30:00Z",
+    })
+    void rejectedLikeGeneric(String string) {
+        assertThrows(DateTimeParseException.class, () -> TimeJson.parseInstantGeneric(string));
+        assertThrows(DateTimeParseException.class, () -> TimeJson.parseInstant(string));
+    }
+
+    private static void assertRoundTrip(Instant instant) {
+        String formatted = TimeJson.formatInstant(instant);
+        assertEquals(TimeJson.formatInstantGeneric(instant), formatted, () -> "Format of " + instant);
+        assertEquals(instant, TimeJson.parseInstant(formatted), () -> "Parse of " + formatted);
+        assertEquals(TimeJson.parseInstantGeneric(formatted), TimeJson.parseInstant(formatted), () -> "Parse of " + formatted);
+    }
+}
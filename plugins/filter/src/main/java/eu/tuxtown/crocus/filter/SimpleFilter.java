@@ -61,8 +61,13 @@ public class SimpleFilter implements EventFilter {
         if (event.url().filter(l -> !this.url.test(l)).isPresent()) return false;
         if (this.after != null && event.time().start(this.timezone).isBefore(this.after)) return false;
         if (this.before != null && event.time().end(this.timezone).isAfter(this.before)) return false;
-        if (!this.during.isEmpty() && this.during.stream().noneMatch(period -> period.covers(event.time(), this.timezone))) return false;
-        if (!this.outside.isEmpty() && this.outside.stream().anyMatch(period -> period.intersects(event.time(), this.timezone))) return false;
+        if (!this.during.isEmpty() || !this.outside.isEmpty()) {
+            // Resolve the days once instead of once per period.
+            LocalDate startDay = event.time().startDay(this.timezone);
+            LocalDate endDay = event.time().endDay(this.timezone);
+            if (!this.during.isEmpty() && !anyCovers(this.during, startDay, endDay)) return false;
+            if (!this.outside.isEmpty() && anyIntersects(this.outside, startDay, endDay)) return false;
+        }
 
         for (Map.Entry<Attribute<?>, Predicate<@Nullable Object>> entry : this.attributes.entrySet()) {
             if (!entry.getValue().test(event.attribute(entry.getKey()).orElse(null))) return false;
@@ -75,6 +80,20 @@ public class SimpleFilter implements EventFilter {
         return this.test(event) ? event : null;
     }
 
+    private static boolean anyCovers(List<DuringPeriod> periods, LocalDate startDay, LocalDate endDay) {
+        for (DuringPeriod period : periods) {
+            if (period.covers(startDay, endDay)) return true;
+        }
+        return false;
+    }
+
+    private static boolean anyIntersects(List<DuringPeriod> periods, LocalDate startDay, LocalDate endDay) {
+        for (DuringPeriod period : periods) {
+            if (period.intersects(startDay, endDay)) return true;
+        }
+        return false;
+    }
+
     @NotNullByDefault
     public record DuringPeriod(LocalDate firstDay, LocalDate lastDay) {
 
@@ -88,11 +107,19 @@ public class SimpleFilter implements EventFilter {
         }
 
         public boolean covers(Event.EventTime times, ZoneId timezone) {
-            return !times.startDay(timezone).isBefore(this.firstDay()) && !times.endDay(timezone).isAfter(this.lastDay());
+            return this.covers(times.startDay(timezone), times.endDay(timezone));
+        }
+
+        public boolean covers(LocalDate startDay, LocalDate endDay) {
+            return !startDay.isBefore(this.firstDay()) && !endDay.isAfter(this.lastDay());
         }
 
         public boolean intersects(Event.EventTime times, ZoneId timezone) {
-            return !times.endDay(timezone).isBefore(this.firstDay()) && !times.startDay(timezone).isAfter(this.lastDay());
+            return this.intersects(times.startDay(timezone), times.endDay(timezone));
+        }
+
+        public boolean intersects(LocalDate startDay, LocalDate endDay) {
+            return !endDay.isBefore(this.firstDay()) && !startDay.isAfter(this.lastDay());
         }
     }
 }
@@ -29,6 +29,7 @@ public class FrabSource implements EventSource {
     private final Resource res;
     private final Charset charset;
     private final ZoneId timezone;
+    private volatile @Nullable ParsedEvents parsed;
 
     public FrabSource(FrabConfig cfg) {
         this.res = cfg.getSource();
@@ -43,6 +44,18 @@ public class FrabSource implements EventSource {
 
     @Override
     public List<Event> retrieveEvents() throws IOException {
+        Optional<String> version = this.res.contentVersion();
+        ParsedEvents parsed = this.parsed;
+        if (parsed != null && version.isPresent() && parsed.version().equals(version.get())) {
+            Crocus.debug("Schedule not modified since it was last read.");
+            return parsed.events();
+        }
+        List<Event> events = this.parseEvents();
+        this.parsed = version.map(v -> new ParsedEvents(v, events)).orElse(null);
+        return events;
+    }
+
+    private List<Event> parseEvents() throws IOException {
         Schedule schedule;
         ClassLoader ctx = Thread.currentThread().getContextClassLoader();
         try (Reader reader = this.res.openReader(this.charset)) {
@@ -108,4 +121,6 @@ public class FrabSource implements EventSource {
 
         return Collections.unmodifiableList(events);
     }
+
+    private record ParsedEvents(String version, List<Event> events) {}
 }
@@ -12,6 +12,7 @@ import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.calendar.CalendarScopes;
 import com.google.api.services.people.v1.PeopleServiceScopes;
 import eu.tuxtown.crocus.api.Crocus;
+import eu.tuxtown.crocus.google.request.RateLimiter;
 import org.jetbrains.annotations.NotNullByDefault;
 
 import java.io.IOException;
@@ -33,10 +34,7 @@ public class GoogleAuth {
     );
 
     public static Credential authorize(GoogleClientSecrets secrets) throws GeneralSecurityException, IOException {
-        if (secrets.getInstalled() == null || secrets.getInstalled().getClientId() == null) {
-            throw new IllegalArgumentException("Invalid google secrets");
-        }
-        String clientId = secrets.getInstalled().getClientId();
+        String clientId = clientId(secrets);
         if (credentialsByClientId.containsKey(clientId)) {
             return credentialsByClientId.get(clientId);
         }
@@ -56,4 +54,16 @@ public class GoogleAuth {
         credentialsByClientId.put(clientId, credential);
         return credential;
     }
+
+    // Quotas are enforced per client, so all services using the same client share a rate limiter.
+    public static RateLimiter rateLimiter(GoogleClientSecrets secrets) {
+        return RateLimiter.forClient(clientId(secrets));
+    }
+
+    private static String clientId(GoogleClientSecrets secrets) {
+        if (secrets.getInstalled() == null || secrets.getInstalled().getClientId() == null) {
+            throw new IllegalArgumentException("Invalid google secrets");
+        }
+        return secrets.getInstalled().getClientId();
+    }
 }
@@ -4,44 +4,74 @@ import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.ClassInfo;
+import com.google.api.client.util.Data;
+import com.google.api.client.util.DateTime;
+import com.google.api.client.util.FieldInfo;
 import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.CalendarRequest;
 import com.google.api.services.calendar.model.Event.Reminders;
 import com.google.api.services.calendar.model.EventDateTime;
 import com.google.api.services.calendar.model.Events;
+import eu.tuxtown.crocus.api.Crocus;
 import eu.tuxtown.crocus.api.calendar.Event;
 import eu.tuxtown.crocus.api.calendar.EventKey;
 import eu.tuxtown.crocus.google.GoogleAuth;
 import eu.tuxtown.crocus.google.api.GoogleAttributes;
 import eu.tuxtown.crocus.google.request.HandledRequest;
+import eu.tuxtown.crocus.google.request.RateLimiter;
 import eu.tuxtown.crocus.google.request.RequestExecutor;
 import org.jetbrains.annotations.NotNullByDefault;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.time.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 @NotNullByDefault
 public class GoogleCalendar implements eu.tuxtown.crocus.api.calendar.Calendar {
 
+    // Returned when listing events with a sync token that is no longer valid.
+    private static final Set<Integer> SYNC_TOKEN_EXPIRED = Set.of(410);
+
     private final String calendarId;
     private final Calendar calendar;
     private final RequestExecutor executor;
     private final ZoneId timezone;
     private final boolean isBirthdayCalendar;
+    private final boolean patchUpdates;
+    private final @Nullable GoogleSyncState syncState;
+    private final GoogleFingerprintCache fingerprints;
 
-    public GoogleCalendar(GoogleCalendarConfig cfg) {
+    public static GoogleCalendar create(GoogleCalendarConfig cfg) {
         try {
             GoogleClientSecrets secrets = GoogleClientSecrets.load(GsonFactory.getDefaultInstance(), new StringReader(cfg.getAuth()));
             Credential credential = GoogleAuth.authorize(secrets);
-            this.calendar = new Calendar.Builder(GoogleNetHttpTransport.newTrustedTransport(), GsonFactory.getDefaultInstance(), credential)
-                    .setApplicationName("Crocus")
-                    .build();
-            this.executor = RequestExecutor.getDefault(this.calendar);
+            Calendar.Builder builder = new Calendar.Builder(GoogleNetHttpTransport.newTrustedTransport(), GsonFactory.getDefaultInstance(), credential)
+                    .setApplicationName("Crocus");
+            @Nullable String rootUrl = cfg.getRootUrl();
+            if (rootUrl != null) builder.setRootUrl(rootUrl);
+            return new GoogleCalendar(cfg, builder.build(), GoogleAuth.rateLimiter(secrets), Crocus.pluginPath(Crocus.Location.PUBLIC));
+        } catch (GeneralSecurityException | IOException e) {
+            throw new RuntimeException("Failed to create google calendar", e);
+        }
+    }
+
+    // Creates a calendar that uses the given client. Reconciliation state is stored in the data path. This allows
+    // running the calendar against a local stand-in for the Google API.
+    public GoogleCalendar(GoogleCalendarConfig cfg, Calendar calendar, RateLimiter rateLimiter, Path dataPath) {
+        try {
+            this.calendar = calendar;
+            this.executor = RequestExecutor.getDefault(this.calendar, rateLimiter, cfg.getParallelBatches());
             this.calendarId = cfg.getCalendarId();
             this.isBirthdayCalendar = cfg.isBirthdays();
+            this.patchUpdates = cfg.isPatchUpdates();
             Optional<com.google.api.services.calendar.model.Calendar> entry = this.executor.tryExecute(this.calendar.calendars().get(this.calendarId), RequestExecutor.NOT_FOUND);
             if (entry.isEmpty()) throw new IllegalStateException("Google calendar " + this.calendarId + " not found.");
             ZoneId timezone = ZoneId.systemDefault();
@@ -51,7 +81,14 @@ public class GoogleCalendar implements eu.tuxtown.crocus.api.calendar.Calendar {
                 //
             }
             this.timezone = timezone;
-        } catch (GeneralSecurityException | IOException e) {
+            String fileId = URLEncoder.encode(this.id(), StandardCharsets.UTF_8);
+            if (cfg.isReconcile()) {
+                this.syncState = GoogleSyncState.load(dataPath.resolve("sync-" + fileId + ".dat"));
+            } else {
+                this.syncState = null;
+            }
+            this.fingerprints = GoogleFingerprintCache.load(dataPath.resolve("fingerprints-" + fileId + ".dat"));
+        } catch (IOException e) {
             throw new RuntimeException("Failed to create google calendar", e);
         }
     }
@@ -68,30 +105,155 @@ public class GoogleCalendar implements eu.tuxtown.crocus.api.calendar.Calendar {
 
     @Override
     public OptionalInt deleteAllEvents() throws IOException {
-        Events events = this.executor.execute(this.calendar.events().list(this.calendarId)
-                .setEventTypes(List.of(this.isBirthdayCalendar ? "birthday" : "default"))
-                .setSingleEvents(false));
-
-        // Birthday calendars sometimes list the same event multiple times for mysterious reasons, even if
-        // singleEvents is turned off. Therefore we first collect all event ids and deduplicate them before
-        // deleting.
-        Set<String> allEventIds = new HashSet<>();
-        while (true) {
-            for (com.google.api.services.calendar.model.Event event : events.getItems()) {
-                allEventIds.add(event.getId());
+        Set<String> allEventIds;
+        if (this.syncState != null) {
+            // The sync state knows every event in the calendar once the changes since the last listing are applied.
+            this.fetchRemoteChanges(this.syncState);
+            allEventIds = this.syncState.eventIds();
+        } else {
+            allEventIds = new HashSet<>();
+            this.listEvents(null, event -> allEventIds.add(event.getId()));
+        }
+        try {
+            try (RequestExecutor.Batcher batcher = this.executor.newBatcher()) {
+                for (String eventId : allEventIds) {
+                    batcher.enqueue(HandledRequest.of(this.calendar.events().delete(this.calendarId, eventId))
+                            .success(result -> this.removed(eventId))
+                            .failure(RequestExecutor.NOT_FOUND, err -> this.removed(eventId))
+                    );
+                }
             }
-            if (events.getNextPageToken() == null) break;
-            events = this.executor.execute(this.calendar.events().list(this.calendarId)
-                    .setEventTypes(List.of(this.isBirthdayCalendar ? "birthday" : "default"))
-                    .setSingleEvents(false)
-                    .setPageToken(events.getNextPageToken()));
+            // The calendar is empty now.
+            this.fingerprints.clear();
+        } finally {
+            this.saveState();
+        }
+        return OptionalInt.of(allEventIds.size());
+    }
+
+    @Override
+    public void reconcile() throws IOException {
+        GoogleSyncState state = this.syncState;
+        if (state == null) return;
+        Set<String> changedEvents = this.fetchRemoteChanges(state);
+        if (changedEvents.isEmpty()) {
+            this.saveState();
+            return;
         }
+        Crocus.info("Restoring " + changedEvents.size() + " events that were changed outside of Crocus.");
         try (RequestExecutor.Batcher batcher = this.executor.newBatcher()) {
-            for (String eventId : allEventIds) {
-                batcher.enqueue(HandledRequest.of(this.calendar.events().delete(this.calendarId, eventId)));
+            for (String eventId : changedEvents) {
+                GoogleSyncState.Entry entry = state.get(eventId);
+                if (entry == null || entry.payload() == null) continue;
+                String payload = entry.payload();
+                com.google.api.services.calendar.model.Event googleEvent = GsonFactory.getDefaultInstance().fromString(payload, com.google.api.services.calendar.model.Event.class);
+                // Restores events that were deleted.
+                googleEvent.setStatus("confirmed");
+                batcher.enqueue(HandledRequest.of(this.calendar.events().update(this.calendarId, eventId, googleEvent))
+                        .success(updated -> state.put(eventId, new GoogleSyncState.Entry(updated.getEtag(), payload)))
+                        .failure(RequestExecutor.NOT_FOUND, err -> {
+                            this.removed(eventId);
+                            Crocus.info("Event " + eventId + " was deleted permanently outside of Crocus. Run a non-incremental update to restore it.");
+                        })
+                );
             }
+        } finally {
+            this.saveState();
         }
-        return OptionalInt.of(allEventIds.size());
+    }
+
+    // Applies all changes made to the calendar since the last listing to the sync state and returns the ids of the
+    // events written by Crocus that were changed or deleted by someone else. Falls back to listing all events if there
+    // is no valid sync token.
+    private Set<String> fetchRemoteChanges(GoogleSyncState state) throws IOException {
+        Set<String> changedEvents = new HashSet<>();
+        @Nullable String syncToken = state.syncToken();
+        if (syncToken != null) {
+            Optional<String> nextSyncToken = this.listEvents(syncToken, event -> this.applyRemoteChange(state, event, changedEvents));
+            if (nextSyncToken.isPresent()) {
+                state.setSyncToken(nextSyncToken.get());
+                return changedEvents;
+            }
+            Crocus.info("Sync token of google calendar " + this.calendarId + " expired. Listing all events.");
+            changedEvents.clear();
+        }
+        Set<String> listedEvents = new HashSet<>();
+        Optional<String> nextSyncToken = this.listEvents(null, event -> {
+            listedEvents.add(event.getId());
+            this.applyRemoteChange(state, event, changedEvents);
+        });
+        // Events that are not listed anymore were deleted.
+        for (String eventId : state.eventIds()) {
+            if (listedEvents.contains(eventId)) continue;
+            GoogleSyncState.Entry entry = state.get(eventId);
+            if (entry != null && entry.managed()) {
+                changedEvents.add(eventId);
+            } else {
+                state.remove(eventId);
+            }
+        }
+        state.setSyncToken(nextSyncToken.orElse(null));
+        return changedEvents;
+    }
+
+    private void applyRemoteChange(GoogleSyncState state, com.google.api.services.calendar.model.Event event, Set<String> changedEvents) {
+        String eventId = event.getId();
+        GoogleSyncState.Entry entry = state.get(eventId);
+        if ("cancelled".equals(event.getStatus())) {
+            if (entry != null && entry.managed()) {
+                changedEvents.add(eventId);
+            } else {
+                state.remove(eventId);
+            }
+        } else if (entry == null || !entry.managed()) {
+            state.put(eventId, new GoogleSyncState.Entry(event.getEtag(), null));
+        } else if (!Objects.equals(entry.etag(), event.getEtag())) {
+            changedEvents.add(eventId);
+        }
+    }
+
+    // Lists all events or, if a sync token is given, the events changed since that token was issued. Returns the
+    // next sync token or an empty optional if the given sync token expired.
+    private Optional<String> listEvents(@Nullable String syncToken, Consumer<com.google.api.services.calendar.model.Event> consumer) throws IOException {
+        @Nullable String pageToken = null;
+        while (true) {
+            Calendar.Events.List request = this.calendar.events().list(this.calendarId)
+                    .setEventTypes(List.of(this.isBirthdayCalendar ? "birthday" : "default"))
+                    .setSingleEvents(false)
+                    .setSyncToken(syncToken)
+                    .setPageToken(pageToken);
+            Optional<Events> events = this.executor.tryExecute(request, SYNC_TOKEN_EXPIRED);
+            if (events.isEmpty()) {
+                if (syncToken == null) throw new IOException("Failed to list events of google calendar " + this.calendarId);
+                return Optional.empty();
+            }
+            // Birthday calendars sometimes list the same event multiple times for mysterious reasons, even if
+            // singleEvents is turned off. Therefore consumers must cope with duplicate events.
+            for (com.google.api.services.calendar.model.Event event : events.get().getItems()) {
+                consumer.accept(event);
+            }
+            pageToken = events.get().getNextPageToken();
+            if (pageToken == null) return Optional.ofNullable(events.get().getNextSyncToken());
+        }
+    }
+
+    // Records an event written by Crocus, so later listings recognize the change as our own and the same payload is
+    // not sent again.
+    private void written(com.google.api.services.calendar.model.Event result, com.google.api.services.calendar.model.Event payload, GoogleFingerprintCache.Entry fingerprint) throws IOException {
+        this.fingerprints.put(result.getId(), fingerprint);
+        if (this.syncState == null) return;
+        this.syncState.put(result.getId(), new GoogleSyncState.Entry(result.getEtag(), GsonFactory.getDefaultInstance().toString(payload)));
+    }
+
+    private void removed(String eventId) {
+        this.fingerprints.remove(eventId);
+        if (this.syncState == null) return;
+        this.syncState.remove(eventId);
+    }
+
+    private void saveState() throws IOException {
+        this.fingerprints.save();
+        if (this.syncState != null) this.syncState.save();
     }
 
     @Override
@@ -99,33 +261,97 @@ public class GoogleCalendar implements eu.tuxtown.crocus.api.calendar.Calendar {
         try (RequestExecutor.Batcher batcher = this.executor.newBatcher()) {
             for (String eventId : events) {
                 batcher.enqueue(HandledRequest.of(this.calendar.events().delete(this.calendarId, eventId))
-                        .failure(RequestExecutor.NOT_FOUND, err -> {})
+                        .success(result -> this.removed(eventId))
+                        .failure(RequestExecutor.NOT_FOUND, err -> this.removed(eventId))
                 );
             }
+        } finally {
+            this.saveState();
         }
     }
 
     @Override
     public void updateEvents(CalendarData data, CalendarIds ids) throws IOException {
+        int skippedEvents = 0;
         try (RequestExecutor.Batcher batcher = this.executor.newBatcher()) {
             for (EventKey key : data.deletedEvents()) {
                 String eventId = ids.getId(key);
                 if (eventId != null) {
-                    batcher.enqueue(HandledRequest.of(this.calendar.events().delete(this.calendarId, eventId)));
+                    batcher.enqueue(HandledRequest.of(this.calendar.events().delete(this.calendarId, eventId))
+                            .success(result -> {
+                                ids.removeId(key);
+                                this.removed(eventId);
+                            })
+                    );
                 }
             }
             for (Map.Entry<EventKey, Event> entry : data.events().entrySet()) {
                 EventKey eventKey = entry.getKey();
                 String eventId = ids.getId(eventKey);
+                com.google.api.services.calendar.model.Event payload = this.buildEvent(entry.getValue());
+                PayloadFingerprint payloadFingerprint = PayloadFingerprint.attach(payload);
+                GoogleFingerprintCache.Entry fingerprint = new GoogleFingerprintCache.Entry(payloadFingerprint, PayloadFingerprint.fieldHashes(payload));
                 if (eventId == null) {
-                    batcher.enqueue(HandledRequest.of(this.calendar.events().insert(this.calendarId, this.buildEvent(entry.getValue())))
-                            .success(newEvent -> ids.setId(eventKey, newEvent.getId()))
+                    batcher.enqueue(HandledRequest.of(this.calendar.events().insert(this.calendarId, payload))
+                            .success(newEvent -> {
+                                ids.setId(eventKey, newEvent.getId());
+                                this.written(newEvent, payload, fingerprint);
+                            })
                     );
-                } else {
-                    batcher.enqueue(HandledRequest.of(this.calendar.events().update(this.calendarId, eventId, this.buildEvent(entry.getValue()))));
+                    continue;
                 }
+                @Nullable GoogleFingerprintCache.Entry previous = this.fingerprints.get(eventId);
+                if (previous != null && payloadFingerprint.equals(previous.fingerprint())) {
+                    // The change is not visible in google, for example an attribute that google doesn't use.
+                    skippedEvents += 1;
+                    continue;
+                }
+                @Nullable com.google.api.services.calendar.model.Event patch = this.patchUpdates && previous != null ? buildPatch(payload, fingerprint.fieldHashes(), previous.fieldHashes()) : null;
+                CalendarRequest<com.google.api.services.calendar.model.Event> request = patch == null
+                        ? this.calendar.events().update(this.calendarId, eventId, payload)
+                        : this.calendar.events().patch(this.calendarId, eventId, patch);
+                batcher.enqueue(HandledRequest.of(request)
+                        .success(updated -> this.written(updated, payload, fingerprint))
+                );
+            }
+        } finally {
+            this.saveState();
+        }
+        if (skippedEvents > 0) {
+            Crocus.info("Skipped " + skippedEvents + " events that are unchanged in google.");
+        }
+    }
+
+    // Builds a patch that contains only the fields that changed since the last payload. Returns null if the payload
+    // must be sent in full, because the fields of the last payload are unknown or a field that was removed can't be
+    // cleared in a patch.
+    private static @Nullable com.google.api.services.calendar.model.Event buildPatch(com.google.api.services.calendar.model.Event payload, Map<String, Long> fieldHashes, Map<String, Long> previousHashes) {
+        if (previousHashes.isEmpty()) return null;
+        com.google.api.services.calendar.model.Event patch = new com.google.api.services.calendar.model.Event();
+        for (Map.Entry<String, Long> field : fieldHashes.entrySet()) {
+            if (!field.getValue().equals(previousHashes.get(field.getKey()))) {
+                Object value = payload.get(field.getKey());
+                patch.set(field.getKey(), value instanceof EventDateTime time ? withExplicitNulls(time) : value);
             }
         }
+        for (String field : previousHashes.keySet()) {
+            if (fieldHashes.containsKey(field)) continue;
+            // Fields are cleared by sending an explicit json null.
+            @Nullable FieldInfo info = ClassInfo.of(com.google.api.services.calendar.model.Event.class).getFieldInfo(field);
+            if (info == null || info.getType().isInterface()) return null;
+            patch.set(field, Data.nullOf(info.getType()));
+        }
+        return patch;
+    }
+
+    // Nested objects are merged in a patch, so a start or end that changes from a date to a date-time would keep its
+    // old date. Unset fields are sent as explicit json null to clear them.
+    private static EventDateTime withExplicitNulls(EventDateTime time) {
+        EventDateTime copy = time.clone();
+        if (copy.getDate() == null) copy.setDate(Data.nullOf(DateTime.class));
+        if (copy.getDateTime() == null) copy.setDateTime(Data.nullOf(DateTime.class));
+        if (copy.getTimeZone() == null) copy.setTimeZone(Data.NULL_STRING);
+        return copy;
     }
 
     private com.google.api.services.calendar.model.Event buildEvent(Event event) {
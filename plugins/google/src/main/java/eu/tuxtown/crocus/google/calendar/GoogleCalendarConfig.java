@@ -11,6 +11,10 @@ public class GoogleCalendarConfig {
     @Nullable private String auth;
     @Nullable private String calendarId;
     private boolean isBirthdayCalendar;
+    private int parallelBatches = 4;
+    private boolean reconcile = false;
+    private boolean patchUpdates = false;
+    @Nullable private String rootUrl;
 
     public GoogleCalendarConfig() {
 
@@ -30,6 +34,23 @@ public class GoogleCalendarConfig {
         this.isBirthdayCalendar = true;
     }
 
+    public void parallelBatches(int parallelBatches) {
+        if (parallelBatches < 1) throw new IllegalArgumentException("Google calendar needs at least one parallel batch");
+        this.parallelBatches = parallelBatches;
+    }
+
+    public void reconcile(boolean reconcile) {
+        this.reconcile = reconcile;
+    }
+
+    public void patchUpdates(boolean patchUpdates) {
+        this.patchUpdates = patchUpdates;
+    }
+
+    public void rootUrl(String rootUrl) {
+        this.rootUrl = rootUrl;
+    }
+
     public String getAuth() {
         if (this.auth == null) throw new NoSuchElementException("Google calendar has no auth properties set");
         return this.auth;
@@ -43,4 +64,20 @@ public class GoogleCalendarConfig {
     public boolean isBirthdays() {
         return this.isBirthdayCalendar;
     }
+
+    public int getParallelBatches() {
+        return this.parallelBatches;
+    }
+
+    public boolean isReconcile() {
+        return this.reconcile;
+    }
+
+    public boolean isPatchUpdates() {
+        return this.patchUpdates;
+    }
+
+    public @Nullable String getRootUrl() {
+        return this.rootUrl;
+    }
 }
@@ -18,6 +18,6 @@ public class GoogleCalendarType implements CalendarType<GoogleCalendar, GoogleCa
 
     @Override
     public GoogleCalendar create(GoogleCalendarConfig delegate) {
-        return new GoogleCalendar(delegate);
+        return GoogleCalendar.create(delegate);
     }
 }
@@ -0,0 +1,99 @@
+package eu.tuxtown.crocus.google.calendar;
+
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Fingerprints of the payloads last sent for the events in a google calendar. Used to skip updates that would send the
+// same payload again and to find the fields that need to be patched. Fingerprints are only recorded once google
+// confirmed the request, so a missing or outdated fingerprint only causes a redundant update.
+// Caches of version 1 have no field hashes, events loaded from them are updated in full once.
+@NotNullByDefault
+public class GoogleFingerprintCache {
+
+    private static final int MAGIC = 0x43524746; // CRGF
+    private static final int VERSION = 2;
+
+    private final Path path;
+    private final Map<String, Entry> fingerprints;
+
+    private GoogleFingerprintCache(Path path, Map<String, Entry> fingerprints) {
+        this.path = path;
+        this.fingerprints = fingerprints;
+    }
+
+    // Loads the cache from the given file. If there is no cache yet, an empty cache is returned.
+    public static GoogleFingerprintCache load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Invalid google fingerprint cache: " + path);
+            int version = in.readInt();
+            if (version != 1 && version != VERSION) throw new IOException("Unsupported google fingerprint cache version: " + version);
+            int size = in.readInt();
+            Map<String, Entry> fingerprints = HashMap.newHashMap(size);
+            for (int i = 0; i < size; i++) {
+                String id = in.readUTF();
+                PayloadFingerprint fingerprint = PayloadFingerprint.read(in);
+                Map<String, Long> fieldHashes = Map.of();
+                if (version >= 2) {
+                    int fields = in.readInt();
+                    fieldHashes = HashMap.newHashMap(fields);
+                    for (int j = 0; j < fields; j++) {
+                        String field = in.readUTF();
+                        fieldHashes.put(field, in.readLong());
+                    }
+                }
+                fingerprints.put(id, new Entry(fingerprint, Map.copyOf(fieldHashes)));
+            }
+            return new GoogleFingerprintCache(path, fingerprints);
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return new GoogleFingerprintCache(path, new HashMap<>());
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        Path tempPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.fingerprints.size());
+            for (Map.Entry<String, Entry> entry : this.fingerprints.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().fingerprint().write(out);
+                out.writeInt(entry.getValue().fieldHashes().size());
+                for (Map.Entry<String, Long> field : entry.getValue().fieldHashes().entrySet()) {
+                    out.writeUTF(field.getKey());
+                    out.writeLong(field.getValue());
+                }
+            }
+        }
+        Files.move(tempPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public synchronized @Nullable Entry get(String eventId) {
+        return this.fingerprints.get(eventId);
+    }
+
+    public synchronized void put(String eventId, Entry entry) {
+        this.fingerprints.put(eventId, entry);
+    }
+
+    public synchronized void remove(String eventId) {
+        this.fingerprints.remove(eventId);
+    }
+
+    public synchronized void clear() {
+        this.fingerprints.clear();
+    }
+
+    // The field hashes are empty if they are not known.
+    public record Entry(PayloadFingerprint fingerprint, Map<String, Long> fieldHashes) {}
+}
@@ -0,0 +1,124 @@
+package eu.tuxtown.crocus.google.calendar;
+
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Remote state of a google calendar used for reconciliation. Holds the sync token of the last listing and the etag of
+// every event known to be in the calendar. For events written by Crocus, the payload that was sent last is kept as
+// well, so the event can be restored when it is changed outside of Crocus. An event whose etag still matches the
+// stored one was last written by Crocus.
+@NotNullByDefault
+public class GoogleSyncState {
+
+    private static final int MAGIC = 0x43524753; // CRGS
+    private static final int VERSION = 1;
+
+    private final Path path;
+    private @Nullable String syncToken;
+    private final Map<String, Entry> events;
+
+    private GoogleSyncState(Path path, @Nullable String syncToken, Map<String, Entry> events) {
+        this.path = path;
+        this.syncToken = syncToken;
+        this.events = events;
+    }
+
+    // Loads the state from the given file. If there is no state yet, an empty state without sync token is returned.
+    public static GoogleSyncState load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Invalid google sync state: " + path);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported google sync state version: " + version);
+            @Nullable String syncToken = in.readBoolean() ? in.readUTF() : null;
+            int size = in.readInt();
+            Map<String, Entry> events = HashMap.newHashMap(size);
+            for (int i = 0; i < size; i++) {
+                String id = in.readUTF();
+                String etag = in.readUTF();
+                @Nullable String payload = in.readBoolean() ? readString(in) : null;
+                events.put(id, new Entry(etag, payload));
+            }
+            return new GoogleSyncState(path, syncToken, events);
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return new GoogleSyncState(path, null, new HashMap<>());
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        Path tempPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(this.syncToken != null);
+            if (this.syncToken != null) out.writeUTF(this.syncToken);
+            out.writeInt(this.events.size());
+            for (Map.Entry<String, Entry> entry : this.events.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue().etag());
+                out.writeBoolean(entry.getValue().payload() != null);
+                if (entry.getValue().payload() != null) writeString(out, entry.getValue().payload());
+            }
+        }
+        Files.move(tempPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public synchronized @Nullable String syncToken() {
+        return this.syncToken;
+    }
+
+    public synchronized void setSyncToken(@Nullable String syncToken) {
+        this.syncToken = syncToken;
+    }
+
+    public synchronized @Nullable Entry get(String eventId) {
+        return this.events.get(eventId);
+    }
+
+    public synchronized void put(String eventId, Entry entry) {
+        this.events.put(eventId, entry);
+    }
+
+    public synchronized void remove(String eventId) {
+        this.events.remove(eventId);
+    }
+
+    public synchronized Set<String> eventIds() {
+        return Set.copyOf(this.events.keySet());
+    }
+
+    public synchronized void clear() {
+        this.events.clear();
+    }
+
+    // Payloads may exceed the length limit of writeUTF.
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // The etag is the one last seen in the calendar. The payload is the json Crocus sent last, it is null for events
+    // not written by Crocus.
+    public record Entry(String etag, @Nullable String payload) {
+
+        public boolean managed() {
+            return this.payload != null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package eu.tuxtown.crocus.google.calendar;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.model.Event;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+// A 128-bit fingerprint of the payload sent to google for an event. This is the truncated SHA-256 hash of the json
+// payload before the fingerprint property is added. The fingerprint is stored in the private extended properties of
+// the event, so the event in the calendar tells which payload it was created from.
+@NotNullByDefault
+public record PayloadFingerprint(long high, long low) {
+
+    public static final String PROPERTY = "crocusFingerprint";
+
+    private static PayloadFingerprint of(Event payload) throws IOException {
+        ByteBuffer hash = ByteBuffer.wrap(sha256(GsonFactory.getDefaultInstance().toString(payload)));
+        return new PayloadFingerprint(hash.getLong(), hash.getLong());
+    }
+
+    // Hashes each top level field of the payload on its own. Fields that are not set are not included. Comparing these
+    // tells which fields changed between two payloads.
+    public static Map<String, Long> fieldHashes(Event payload) throws IOException {
+        Map<String, Long> hashes = new HashMap<>();
+        for (Map.Entry<String, Object> field : payload.entrySet()) {
+            if (field.getValue() == null) continue;
+            hashes.put(field.getKey(), ByteBuffer.wrap(sha256(GsonFactory.getDefaultInstance().toString(field.getValue()))).getLong());
+        }
+        return Map.copyOf(hashes);
+    }
+
+    private static byte[] sha256(String json) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+
+    // Computes the fingerprint of the payload and adds it to the private extended properties. The payload must not
+    // have a fingerprint yet.
+    public static PayloadFingerprint attach(Event payload) throws IOException {
+        PayloadFingerprint fingerprint = of(payload);
+        Event.ExtendedProperties properties = payload.getExtendedProperties();
+        if (properties == null) properties = new Event.ExtendedProperties();
+        Map<String, String> privateProperties = properties.getPrivate() == null ? new HashMap<>() : new HashMap<>(properties.getPrivate());
+        privateProperties.put(PROPERTY, fingerprint.toString());
+        payload.setExtendedProperties(properties.setPrivate(privateProperties));
+        return fingerprint;
+    }
+
+    public static PayloadFingerprint read(DataInput in) throws IOException {
+        long high = in.readLong();
+        long low = in.readLong();
+        return new PayloadFingerprint(high, low);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(this.high());
+        out.writeLong(this.low());
+    }
+
+    @Override
+    public String toString() {
+        return HexFormat.of().toHexDigits(this.high()) + HexFormat.of().toHexDigits(this.low());
+    }
+}
@@ -36,7 +36,7 @@ public class PeopleSource implements EventSource {
             this.service = new PeopleService.Builder(GoogleNetHttpTransport.newTrustedTransport(), GsonFactory.getDefaultInstance(), credential)
                     .setApplicationName("Crocus")
                     .build();
-            this.executor = RequestExecutor.getDefault(this.service);
+            this.executor = RequestExecutor.getDefault(this.service, GoogleAuth.rateLimiter(secrets));
             this.formatFunction = cfg.getFormat();
         } catch (GeneralSecurityException | IOException e) {
             throw new RuntimeException("Failed to create google people source", e);
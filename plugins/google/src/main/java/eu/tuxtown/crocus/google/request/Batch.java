@@ -18,11 +18,23 @@ public class Batch {
     private final AbstractGoogleJsonClient client;
     private final List<HandledRequest<?>> requests;
     private final BackOff backOff;
+    private final RateLimiter rateLimiter;
+    private final SharedBackOff sharedBackOff;
+    private final Object handlerLock;
 
     public Batch(AbstractGoogleJsonClient client, List<HandledRequest<?>> requests, BackOff backOff) {
+        this(client, requests, backOff, new RateLimiter(), new SharedBackOff(), new Object());
+    }
+
+    // Batches that are sent concurrently share the rate limit pause. The handlers of all requests are run while
+    // holding the handler lock, so they don't need to be thread safe.
+    public Batch(AbstractGoogleJsonClient client, List<HandledRequest<?>> requests, BackOff backOff, RateLimiter rateLimiter, SharedBackOff sharedBackOff, Object handlerLock) {
         this.client = client;
         this.requests = List.copyOf(requests);
         this.backOff = backOff;
+        this.rateLimiter = rateLimiter;
+        this.sharedBackOff = sharedBackOff;
+        this.handlerLock = handlerLock;
     }
 
     public void send() throws IOException {
@@ -32,13 +44,21 @@ public class Batch {
         int attempt = 0;
         while (!nextBatch.isEmpty()) {
             attempt += 1;
+            this.sharedBackOff.await();
+            this.rateLimiter.acquire(nextBatch.size());
             BatchRequest batch = this.client.batch(ServerErrorRetryHandler.INITIALIZER);
             List<HandledRequest<?>> deferredRequests = new ArrayList<>();
             List<IOException> capturedExceptions = new ArrayList<>();
             for (HandledRequest<?> request : nextBatch) {
-                insertIntoBatch(batch, request, returnedRequests, deferredRequests, capturedExceptions);
+                insertIntoBatch(batch, request, this.handlerLock, returnedRequests, deferredRequests, capturedExceptions);
             }
             batch.execute();
+            if (deferredRequests.isEmpty()) {
+                this.rateLimiter.succeeded(nextBatch.size());
+            } else {
+                this.rateLimiter.succeeded(nextBatch.size() - deferredRequests.size());
+                this.rateLimiter.limited();
+            }
 
             if (!capturedExceptions.isEmpty()) {
                 IOException root = new IOException("Multiple failures in batch request.");
@@ -55,7 +75,7 @@ public class Batch {
                     throw new IOException("BackOff: Giving up after " + attempt + " attempts. Missing " + deferredRequests.size() + " requests in a batch of " + this.requests.size());
                 } else if (millis > 0) {
                     Crocus.debug(String.format(Locale.ROOT, "BackOff: Waiting for %1.3f seconds due to rate limiting. There are %d requests left in a batch of %d", millis / 1000d, deferredRequests.size(), this.requests.size()));
-                    RequestExecutor.sleepFor(millis);
+                    this.sharedBackOff.pause(millis);
                 }
             }
 
@@ -69,11 +89,24 @@ public class Batch {
         }
     }
 
-    private static <T> void insertIntoBatch(BatchRequest batch, HandledRequest<T> request, Set<UUID> returnedRequests, List<HandledRequest<?>> deferredRequests, List<IOException> capturedExceptions) throws IOException {
+    private static <T> void insertIntoBatch(BatchRequest batch, HandledRequest<T> request, Object handlerLock, Set<UUID> returnedRequests, List<HandledRequest<?>> deferredRequests, List<IOException> capturedExceptions) throws IOException {
         request.request().queue(batch, new JsonBatchCallback<>() {
 
             @Override
             public void onSuccess(T result, HttpHeaders headers) {
+                synchronized (handlerLock) {
+                    this.processSuccess(result, headers);
+                }
+            }
+
+            @Override
+            public void onFailure(GoogleJsonError error, HttpHeaders headers) {
+                synchronized (handlerLock) {
+                    this.processFailure(error, headers);
+                }
+            }
+
+            private void processSuccess(T result, HttpHeaders headers) {
                 if (returnedRequests.add(request.uid())) {
                     Optional<IOException> ex = request.handleSuccess(result, headers);
                     ex.ifPresent(capturedExceptions::add);
@@ -84,8 +117,7 @@ public class Batch {
                 }
             }
 
-            @Override
-            public void onFailure(GoogleJsonError error, HttpHeaders headers) {
+            private void processFailure(GoogleJsonError error, HttpHeaders headers) {
                 if (RequestExecutor.backOffRequired(error)) {
                     deferredRequests.add(request);
                 } else if (returnedRequests.add(request.uid())) {
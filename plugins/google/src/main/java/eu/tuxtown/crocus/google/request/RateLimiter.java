@@ -0,0 +1,89 @@
+package eu.tuxtown.crocus.google.request;
+
+import eu.tuxtown.crocus.api.Crocus;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Token bucket that paces requests before they are sent. Google enforces its quotas per OAuth client, so all
+// executors using the same client share one limiter.
+// The rate adapts to the observed rate limits: Every request that is not rate limited increases it a little, every
+// round of requests that is rate limited halves it. Batches count as one request per contained request.
+@NotNullByDefault
+public final class RateLimiter {
+
+    private static final Map<String, RateLimiter> limitersByClientId = new HashMap<>();
+
+    private static final double INITIAL_RATE = 50;
+    private static final double MIN_RATE = 1;
+    private static final double MAX_RATE = 500;
+    private static final double INCREASE_PER_REQUEST = 0.05;
+    private static final double DECREASE_FACTOR = 0.5;
+    // Enough for one full batch, so a single batch is never delayed by an idle limiter.
+    private static final double BURST = 100;
+
+    // A batch that is sent concurrently to the one that was rate limited, most likely hits the limit as well. So the
+    // rate is decreased only once in this interval.
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long lastDecrease;
+
+    public RateLimiter() {
+        this.rate = INITIAL_RATE;
+        this.tokens = BURST;
+        this.lastRefill = System.nanoTime();
+        this.lastDecrease = this.lastRefill - DECREASE_INTERVAL_NANOS;
+    }
+
+    public static synchronized RateLimiter forClient(String clientId) {
+        return limitersByClientId.computeIfAbsent(clientId, k -> new RateLimiter());
+    }
+
+    // Waits until the given number of requests may be sent. Requests are never rejected, a request that exceeds the
+    // available tokens leaves the bucket in debt, so following requests wait longer.
+    public void acquire(int requests) {
+        long waitNanos;
+        synchronized (this) {
+            this.refill();
+            waitNanos = this.tokens >= requests ? 0 : (long) ((requests - this.tokens) / this.rate * 1e9);
+            this.tokens -= requests;
+        }
+        if (waitNanos > 0) {
+            RequestExecutor.sleepFor(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+        }
+    }
+
+    // Called for requests that were answered without rate limiting.
+    public synchronized void succeeded(int requests) {
+        this.refill();
+        this.rate = Math.min(MAX_RATE, this.rate + requests * INCREASE_PER_REQUEST);
+    }
+
+    // Called once for each round of requests in which at least one request was rate limited.
+    public synchronized void limited() {
+        this.refill();
+        long now = System.nanoTime();
+        if (now - this.lastDecrease < DECREASE_INTERVAL_NANOS) return;
+        this.lastDecrease = now;
+        this.rate = Math.max(MIN_RATE, this.rate * DECREASE_FACTOR);
+        this.tokens = Math.min(this.tokens, 0);
+        Crocus.debug(String.format(Locale.ROOT, "RateLimiter: Reduced request rate to %1.1f requests per second.", this.rate));
+    }
+
+    public synchronized double rate() {
+        return this.rate;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double capacity = Math.max(BURST, this.rate);
+        this.tokens = Math.min(capacity, this.tokens + (now - this.lastRefill) / 1e9 * this.rate);
+        this.lastRefill = now;
+    }
+}
@@ -12,7 +12,9 @@ import org.jetbrains.annotations.NotNullByDefault;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -28,10 +30,26 @@ public class RequestExecutor {
 
     private final AbstractGoogleJsonClient client;
     private final BackOffStrategy backOffStrategy;
+    private final int parallelBatches;
+    private final RateLimiter rateLimiter;
+    private final SharedBackOff sharedBackOff;
+    private final Object handlerLock;
 
     public RequestExecutor(AbstractGoogleJsonClient client, BackOffStrategy backOffStrategy) {
+        this(client, backOffStrategy, new RateLimiter(), 1);
+    }
+
+    // Batchers of this executor keep up to parallelBatches batches in flight. Request handlers are never run
+    // concurrently, so they may update shared state without synchronization. The rate limiter may be shared with
+    // other executors that use the same OAuth client.
+    public RequestExecutor(AbstractGoogleJsonClient client, BackOffStrategy backOffStrategy, RateLimiter rateLimiter, int parallelBatches) {
+        if (parallelBatches < 1) throw new IllegalArgumentException("At least one batch must be sent at a time.");
         this.client = client;
         this.backOffStrategy = backOffStrategy;
+        this.rateLimiter = rateLimiter;
+        this.parallelBatches = parallelBatches;
+        this.sharedBackOff = new SharedBackOff();
+        this.handlerLock = new Object();
     }
 
     public <T> T execute(AbstractGoogleJsonClientRequest<T> request) throws IOException {
@@ -55,12 +73,10 @@ public class RequestExecutor {
     }
 
     public void executeAll(List<HandledRequest<?>> requests) throws IOException {
-        int processedRequests = 0;
-        while (processedRequests < requests.size()) {
-            int nextBatchSize = Math.min(MAX_BATCH_SIZE, requests.size() - processedRequests);
-            List<HandledRequest<?>> nextBatchView = requests.subList(processedRequests, processedRequests + nextBatchSize);
-            this.sendSingleBatch(nextBatchView);
-            processedRequests += nextBatchSize;
+        try (Batcher batcher = this.newBatcher()) {
+            for (HandledRequest<?> request : requests) {
+                batcher.enqueue(request);
+            }
         }
     }
 
@@ -73,7 +89,7 @@ public class RequestExecutor {
         if (requests.size() == 1) {
             this.sendSingleRequest(requests.getFirst());
         } else {
-            new Batch(this.client, requests, this.backOffStrategy.newBackOff()).send();
+            new Batch(this.client, requests, this.backOffStrategy.newBackOff(), this.rateLimiter, this.sharedBackOff, this.handlerLock).send();
         }
     }
 
@@ -83,34 +99,50 @@ public class RequestExecutor {
         int attempt = 0;
         while (true) {
             attempt += 1;
+            this.sharedBackOff.await();
+            this.rateLimiter.acquire(1);
             HttpResponse response = request.request().buildHttpRequest()
                     .setUnsuccessfulResponseHandler(ServerErrorRetryHandler.INSTANCE)
                     .setThrowExceptionOnExecuteError(false)
                     .execute();
             if (response.isSuccessStatusCode()) {
-                Optional<IOException> ex = request.handleSuccess(response.parseAs(request.request().getResponseClass()), response.getHeaders());
+                this.rateLimiter.succeeded(1);
+                T result = response.parseAs(request.request().getResponseClass());
+                Optional<IOException> ex;
+                synchronized (this.handlerLock) {
+                    ex = request.handleSuccess(result, response.getHeaders());
+                }
                 if (ex.isPresent()) throw ex.get();
                 return;
             } else {
                 GoogleJsonErrorContainer errorContainer = response.parseAs(GoogleJsonErrorContainer.class);
                 if (!backOffRequired(errorContainer.getError())) {
-                    Optional<IOException> ex = request.handleFailure(errorContainer.getError(), response.getHeaders());
+                    this.rateLimiter.succeeded(1);
+                    Optional<IOException> ex;
+                    synchronized (this.handlerLock) {
+                        ex = request.handleFailure(errorContainer.getError(), response.getHeaders());
+                    }
                     if (ex.isPresent()) throw ex.get();
                     return;
                 }
+                this.rateLimiter.limited();
             }
             long millis = backOff.nextBackOffMillis();
             if (millis == BackOff.STOP) {
                 throw new IOException("BackOff: Giving up after " + attempt + " attempts.");
             } else if (millis > 0) {
                 Crocus.debug(String.format(Locale.ROOT, "BackOff: Waiting for %1.3f seconds due to rate limiting.", millis / 1000d));
-                sleepFor(millis);
+                this.sharedBackOff.pause(millis);
             }
         }
     }
 
-    public static RequestExecutor getDefault(AbstractGoogleJsonClient client) {
-        return new RequestExecutor(client, ExponentialBackOff::new);
+    public static RequestExecutor getDefault(AbstractGoogleJsonClient client, RateLimiter rateLimiter) {
+        return getDefault(client, rateLimiter, 1);
+    }
+
+    public static RequestExecutor getDefault(AbstractGoogleJsonClient client, RateLimiter rateLimiter, int parallelBatches) {
+        return new RequestExecutor(client, ExponentialBackOff::new, rateLimiter, parallelBatches);
     }
 
     static boolean backOffRequired(GoogleJsonError error) {
@@ -127,12 +159,30 @@ public class RequestExecutor {
         }
     }
 
+    // Collects requests into batches. With a single batch in flight, each full batch is sent before enqueue returns.
+    // Otherwise, full batches are sent on separate threads and enqueue only blocks while the maximum number of batches
+    // is in flight. Failures of concurrently sent batches are thrown from close.
     public class Batcher implements AutoCloseable {
 
         private final List<HandledRequest<?>> currentRequests;
+        private final @Nullable Semaphore permits;
+        private final @Nullable ExecutorService executor;
+        private final List<Future<?>> inFlight;
+        private final Crocus.@Nullable LogScope logScope;
 
         private Batcher() {
             this.currentRequests = new ArrayList<>(RequestExecutor.MAX_BATCH_SIZE);
+            if (RequestExecutor.this.parallelBatches > 1) {
+                this.permits = new Semaphore(RequestExecutor.this.parallelBatches);
+                this.executor = Executors.newVirtualThreadPerTaskExecutor();
+                // Batches log into the output of the calendar that created the batcher.
+                this.logScope = Crocus.captureLogScope();
+            } else {
+                this.permits = null;
+                this.executor = null;
+                this.logScope = null;
+            }
+            this.inFlight = new ArrayList<>();
         }
 
         public void enqueue(HandledRequest.Builder<?> request) throws IOException {
@@ -142,17 +192,73 @@ public class RequestExecutor {
         public void enqueue(HandledRequest<?> request) throws IOException {
             this.currentRequests.add(request);
             if (this.currentRequests.size() >= RequestExecutor.MAX_BATCH_SIZE) {
-                List<HandledRequest<?>> batch = List.copyOf(this.currentRequests);
-                this.currentRequests.clear();
+                this.dispatch();
+            }
+        }
+
+        private void dispatch() throws IOException {
+            List<HandledRequest<?>> batch = List.copyOf(this.currentRequests);
+            this.currentRequests.clear();
+            if (batch.isEmpty()) return;
+            if (this.permits == null || this.executor == null || this.logScope == null) {
                 RequestExecutor.this.sendSingleBatch(batch);
+                return;
+            }
+            // Stop early if a batch has already failed.
+            if (this.inFlight.stream().anyMatch(future -> future.state() == Future.State.FAILED)) this.awaitAll();
+            this.inFlight.removeIf(future -> future.state() == Future.State.SUCCESS);
+            try {
+                this.permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a batch to complete.");
+            }
+            Semaphore permits = this.permits;
+            Crocus.LogScope logScope = this.logScope;
+            this.inFlight.add(this.executor.submit(() -> {
+                try {
+                    return logScope.call(() -> {
+                        RequestExecutor.this.sendSingleBatch(batch);
+                        return null;
+                    });
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        // Waits for all batches in flight and throws the first failure.
+        private void awaitAll() throws IOException {
+            @Nullable IOException failure = null;
+            for (Future<?> future : this.inFlight) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    IOException ex = new InterruptedIOException("Interrupted while waiting for a batch to complete.");
+                    if (failure == null) failure = ex; else failure.addSuppressed(ex);
+                    break;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error err) throw err;
+                    IOException ex = e.getCause() instanceof IOException ioex ? ioex : new IOException("Batch failed", e.getCause());
+                    if (failure == null) failure = ex; else failure.addSuppressed(ex);
+                }
             }
+            this.inFlight.clear();
+            if (failure != null) throw failure;
         }
 
         @Override
         public void close() throws IOException {
-            List<HandledRequest<?>> batch = List.copyOf(this.currentRequests);
-            this.currentRequests.clear();
-            RequestExecutor.this.sendSingleBatch(batch);
+            try {
+                this.dispatch();
+                this.awaitAll();
+            } finally {
+                if (this.executor != null) {
+                    this.executor.shutdownNow();
+                    this.executor.close();
+                }
+            }
         }
     }
 }
@@ -0,0 +1,48 @@
+package eu.tuxtown.crocus.google.request;
+
+import eu.tuxtown.crocus.api.Crocus;
+import org.jetbrains.annotations.NotNullByDefault;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Rate limit pause shared by all batches of an executor. If one batch is rate limited, the other batches that are in
+// flight would hit the same limit, so all of them wait until the pause is over before sending their next request.
+@NotNullByDefault
+public final class SharedBackOff {
+
+    private long resumeAt;
+    private boolean paused;
+
+    public SharedBackOff() {
+        this.resumeAt = 0;
+        this.paused = false;
+    }
+
+    // Extends the pause, so no request is sent for the given time.
+    public synchronized void pause(long millis) {
+        long resumeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (!this.paused || resumeAt - this.resumeAt > 0) {
+            this.resumeAt = resumeAt;
+            this.paused = true;
+        }
+    }
+
+    // Waits until the current pause is over.
+    public void await() {
+        while (true) {
+            long millis;
+            synchronized (this) {
+                if (!this.paused) return;
+                long remaining = this.resumeAt - System.nanoTime();
+                if (remaining <= 0) {
+                    this.paused = false;
+                    return;
+                }
+                millis = TimeUnit.NANOSECONDS.toMillis(remaining) + 1;
+            }
+            Crocus.debug(String.format(Locale.ROOT, "BackOff: Waiting for %1.3f seconds due to rate limiting in another batch.", millis / 1000d));
+            RequestExecutor.sleepFor(millis);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package eu.tuxtown.crocus.google.calendar;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.client.util.Data;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.Events;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Stand-in for the events part of the Google Calendar API. Keeps the events of a single calendar in memory and answers
+// single requests as well as batch requests. Every change gets a sequence number, a sync token holds the sequence
+// number of the last change it covers. Deleted events stay in the calendar as cancelled events, like in Google.
+@NotNullByDefault
+class FakeCalendarTransport extends MockHttpTransport {
+
+    static final String ROOT_URL = "https://calendar.test/";
+
+    private static final JsonFactory JSON = GsonFactory.getDefaultInstance();
+    private static final String BOUNDARY = "batch_crocus_test";
+
+    private final String calendarId;
+    private final Map<String, Event> events;
+    private final Map<String, Integer> changedAt;
+    private final List<Request> requests;
+    private int sequence;
+    private int nextId;
+    private int tokenGeneration;
+
+    FakeCalendarTransport(String calendarId) {
+        this.calendarId = calendarId;
+        this.events = new LinkedHashMap<>();
+        this.changedAt = new HashMap<>();
+        this.requests = new ArrayList<>();
+        this.sequence = 0;
+        this.nextId = 0;
+        this.tokenGeneration = 0;
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+
+            @Override
+            public MockLowLevelHttpResponse execute() throws IOException {
+                GenericUrl parsed = new GenericUrl(url);
+                if (parsed.getRawPath().equals("/batch/calendar/v3")) {
+                    return FakeCalendarTransport.this.batch(Objects.requireNonNull(this.getContentType()), this.getContentAsString());
+                }
+                Response response = FakeCalendarTransport.this.handle(method, parsed, this.getContentAsString());
+                MockLowLevelHttpResponse result = new MockLowLevelHttpResponse().setStatusCode(response.status());
+                if (response.json() != null) result.setContentType("application/json; charset=UTF-8").setContent(response.json());
+                return result;
+            }
+        };
+    }
+
+    // Creates an event like a user would in the Google Calendar UI.
+    synchronized String createOutside(String summary) {
+        Event event = new Event().setSummary(summary);
+        event.setId("foreign" + (++this.nextId));
+        this.store(event);
+        return event.getId();
+    }
+
+    synchronized void editOutside(String eventId, String summary) {
+        this.store(this.existing(eventId).setSummary(summary));
+    }
+
+    // Deletes an event, it is still listed as cancelled when listing with a sync token.
+    synchronized void cancelOutside(String eventId) {
+        this.store(this.existing(eventId).setStatus("cancelled"));
+    }
+
+    // Removes every trace of an event. Google does this some time after an event has been deleted.
+    synchronized void purgeOutside(String eventId) {
+        this.existing(eventId);
+        this.events.remove(eventId);
+        this.changedAt.remove(eventId);
+    }
+
+    // Makes all sync tokens issued so far invalid, so listing with them fails with 410 Gone.
+    synchronized void expireSyncTokens() {
+        this.tokenGeneration += 1;
+    }
+
+    synchronized @Nullable Event event(String eventId) {
+        Event event = this.events.get(eventId);
+        return event == null ? null : event.clone();
+    }
+
+    synchronized List<Event> liveEvents() {
+        return this.events.values().stream().filter(event -> !"cancelled".equals(event.getStatus())).map(Event::clone).toList();
+    }
+
+    synchronized List<Request> requests() {
+        return List.copyOf(this.requests);
+    }
+
+    synchronized void clearRequests() {
+        this.requests.clear();
+    }
+
+    private Event existing(String eventId) {
+        Event event = this.events.get(eventId);
+        if (event == null) throw new NoSuchElementException("No event " + eventId + " in fake calendar.");
+        return event.clone();
+    }
+
+    private void store(Event event) {
+        this.sequence += 1;
+        if (event.getStatus() == null) event.setStatus("confirmed");
+        event.setEtag("\"" + this.sequence + "\"");
+        this.events.put(event.getId(), event);
+        this.changedAt.put(event.getId(), this.sequence);
+    }
+
+    private synchronized Response handle(String method, GenericUrl url, String body) throws IOException {
+        List<String> path = url.getPathParts();
+        if (path.size() < 5 || !path.subList(1, 4).equals(List.of("calendar", "v3", "calendars")) || !path.get(4).equals(this.calendarId)) {
+            return error(404, "notFound");
+        }
+        List<String> resource = path.subList(5, path.size());
+        @Nullable String syncToken = (String) url.getFirst("syncToken");
+        this.requests.add(new Request(method, String.join("/", resource), syncToken));
+
+        if (resource.isEmpty() && method.equals("GET")) {
+            return ok(new com.google.api.services.calendar.model.Calendar().setId(this.calendarId).setTimeZone("UTC"));
+        } else if (resource.equals(List.of("events"))) {
+            return switch (method) {
+                case "GET" -> this.list(syncToken);
+                case "POST" -> this.insert(JSON.fromString(body, Event.class));
+                default -> error(405, "methodNotAllowed");
+            };
+        } else if (resource.size() == 2 && resource.getFirst().equals("events")) {
+            String eventId = resource.get(1);
+            Event existing = this.events.get(eventId);
+            if (existing == null) return error(404, "notFound");
+            return switch (method) {
+                case "GET" -> ok(existing);
+                case "PUT" -> this.update(eventId, JSON.fromString(body, Event.class));
+                case "PATCH" -> this.patch(existing.clone(), JSON.fromString(body, Event.class));
+                case "DELETE" -> this.delete(existing.clone());
+                default -> error(405, "methodNotAllowed");
+            };
+        } else {
+            return error(404, "notFound");
+        }
+    }
+
+    private Response list(@Nullable String syncToken) throws IOException {
+        List<Event> items = new ArrayList<>();
+        if (syncToken == null) {
+            // Full listings don't contain deleted events.
+            for (Event event : this.events.values()) {
+                if (!"cancelled".equals(event.getStatus())) items.add(event);
+            }
+        } else {
+            String[] token = syncToken.split(":");
+            if (Integer.parseInt(token[0]) != this.tokenGeneration) return error(410, "fullSyncRequired");
+            int since = Integer.parseInt(token[1]);
+            for (Event event : this.events.values()) {
+                if (this.changedAt.get(event.getId()) > since) items.add(event);
+            }
+        }
+        return ok(new Events().setItems(items).setNextSyncToken(this.tokenGeneration + ":" + this.sequence));
+    }
+
+    private Response insert(Event event) throws IOException {
+        event.setId("event" + (++this.nextId));
+        this.store(event);
+        return ok(event);
+    }
+
+    private Response update(String eventId, Event event) throws IOException {
+        event.setId(eventId);
+        this.store(event);
+        return ok(event);
+    }
+
+    private Response patch(Event existing, Event patch) throws IOException {
+        for (Map.Entry<String, Object> field : patch.entrySet()) {
+            if (Data.isNull(field.getValue())) {
+                existing.remove(field.getKey());
+            } else {
+                existing.set(field.getKey(), field.getValue());
+            }
+        }
+        this.store(existing);
+        return ok(existing);
+    }
+
+    private Response delete(Event existing) {
+        if ("cancelled".equals(existing.getStatus())) return error(410, "deleted");
+        this.store(existing.setStatus("cancelled"));
+        return new Response(204, null);
+    }
+
+    // Answers every request of a multipart batch in order, like the batch endpoint of the Google APIs.
+    private MockLowLevelHttpResponse batch(String contentType, String body) throws IOException {
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + 9).replace("\"", "");
+        StringBuilder response = new StringBuilder();
+        for (String part : body.split(Pattern.quote("--" + boundary))) {
+            int partHeaderEnd = part.indexOf("\r\n\r\n");
+            if (partHeaderEnd < 0) continue;
+            String request = part.substring(partHeaderEnd + 4);
+            int headerEnd = request.indexOf("\r\n\r\n");
+            String head = headerEnd < 0 ? request.strip() : request.substring(0, headerEnd);
+            String content = headerEnd < 0 ? "" : request.substring(headerEnd + 4).strip();
+            String[] requestLine = head.lines().findFirst().orElseThrow().split(" ");
+            String url = requestLine[1].startsWith("/") ? ROOT_URL + requestLine[1].substring(1) : requestLine[1];
+            Response result = this.handle(requestLine[0], new GenericUrl(url), content);
+            response.append("--").append(BOUNDARY).append("\r\n");
+            response.append("Content-Type: application/http\r\n\r\n");
+            response.append("HTTP/1.1 ").append(result.status()).append(" ").append(result.status() < 300 ? "OK" : "Error").append("\r\n");
+            if (result.json() != null) {
+                response.append("Content-Type: application/json; charset=UTF-8\r\n\r\n").append(result.json()).append("\r\n");
+            } else {
+                response.append("Content-Length: 0\r\n\r\n\r\n");
+            }
+        }
+        response.append("--").append(BOUNDARY).append("--\r\n");
+        return new MockLowLevelHttpResponse()
+                .setStatusCode(200)
+                .setContentType("multipart/mixed; boundary=" + BOUNDARY)
+                .setContent(response.toString());
+    }
+
+    private static Response ok(GenericJson json) throws IOException {
+        return new Response(200, JSON.toString(json));
+    }
+
+    private static Response error(int code, String reason) {
+        String json = "{\"error\":{\"code\":" + code + ",\"message\":\"" + reason + "\",\"errors\":[{\"domain\":\"global\",\"reason\":\"" + reason + "\",\"message\":\"" + reason + "\"}]}}";
+        return new Response(code, json);
+    }
+
+    private record Response(int status, @Nullable String json) {}
+
+    // A request to the calendar. The resource is the path below the calendar, for example events/event1.
+    record Request(String method, String resource, @Nullable String syncToken) {
+
+        boolean isWrite() {
+            return !this.method().equals("GET");
+        }
+
+        boolean isFullListing() {
+            return this.method().equals("GET") && this.resource().equals("events") && this.syncToken() == null;
+        }
+    }
+}
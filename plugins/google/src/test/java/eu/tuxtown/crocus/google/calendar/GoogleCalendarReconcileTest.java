@@ -0,0 +1,205 @@
+package eu.tuxtown.crocus.google.calendar;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.Calendar;
+import eu.tuxtown.crocus.api.calendar.Event;
+import eu.tuxtown.crocus.api.calendar.EventKey;
+import eu.tuxtown.crocus.core.CrocusRuntime;
+import eu.tuxtown.crocus.core.loader.Services;
+import eu.tuxtown.crocus.google.api.GoogleAttributes;
+import eu.tuxtown.crocus.google.request.RateLimiter;
+import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the reconciliation of google calendars against a stand-in for the Google Calendar API.
+@NotNullByDefault
+class GoogleCalendarReconcileTest {
+
+    private static final String CALENDAR_ID = "test";
+    private static final Instant START = Instant.parse("2025-06-15T08:00:00Z");
+
+    @BeforeAll
+    static void createRuntime(@TempDir Path path) {
+        CrocusRuntime runtime = new CrocusRuntime(path, ModuleLayer.boot(), true);
+        runtime.initialize(Map.of(
+                GoogleAttributes.TIMEZONE_OVERRIDE.name(), GoogleAttributes.TIMEZONE_OVERRIDE,
+                GoogleAttributes.BLOCKS_TIME.name(), GoogleAttributes.BLOCKS_TIME
+        ), Services.EMPTY);
+    }
+
+    @TempDir
+    Path dataPath;
+    private FakeCalendarTransport server;
+    private GoogleCalendar calendar;
+    private Ids ids;
+
+    @BeforeEach
+    void createCalendar() {
+        this.server = new FakeCalendarTransport(CALENDAR_ID);
+        this.calendar = this.newCalendar();
+        this.ids = new Ids();
+    }
+
+    @Test
+    void ownWritesAreIgnored() throws IOException {
+        this.write("a", "b", "c");
+        this.calendar.reconcile();
+        this.write("a", "b", "c", "d");
+        this.server.clearRequests();
+        this.calendar.reconcile();
+        assertEquals(List.of(), this.writes());
+        assertEquals(4, this.server.liveEvents().size());
+    }
+
+    @Test
+    void remoteEditIsRestored() throws IOException {
+        this.write("a", "b");
+        this.calendar.reconcile();
+        this.server.editOutside(this.id("a"), "Edited in google");
+        // The sync state is loaded from disk.
+        this.calendar = this.newCalendar();
+        this.server.clearRequests();
+        this.calendar.reconcile();
+        assertEquals("Event a", this.summary("a"));
+        assertEquals(List.of(new FakeCalendarTransport.Request("PUT", "events/" + this.id("a"), null)), this.writes());
+
+        // The restored event is written by Crocus again.
+        this.server.clearRequests();
+        this.calendar.reconcile();
+        assertEquals(List.of(), this.writes());
+    }
+
+    @Test
+    void cancelledEventIsRestored() throws IOException {
+        this.write("a", "b");
+        this.calendar.reconcile();
+        this.server.cancelOutside(this.id("b"));
+        this.calendar.reconcile();
+        assertEquals("confirmed", Objects.requireNonNull(this.server.event(this.id("b"))).getStatus());
+        assertEquals("Event b", this.summary("b"));
+        assertEquals(2, this.server.liveEvents().size());
+    }
+
+    @Test
+    void foreignEventsAreKept() throws IOException {
+        this.write("a");
+        this.calendar.reconcile();
+        String foreignId = this.server.createOutside("Foreign");
+        this.calendar.reconcile();
+        this.server.editOutside(foreignId, "Foreign, edited");
+        this.server.cancelOutside(foreignId);
+        this.server.clearRequests();
+        this.calendar.reconcile();
+        assertEquals(List.of(), this.writes());
+        assertEquals("cancelled", Objects.requireNonNull(this.server.event(foreignId)).getStatus());
+    }
+
+    @Test
+    void expiredSyncTokenFallsBackToFullListing() throws IOException {
+        this.write("a", "b", "c");
+        this.calendar.reconcile();
+        this.server.editOutside(this.id("a"), "Edited in google");
+        this.server.purgeOutside(this.id("b"));
+        this.server.expireSyncTokens();
+        this.server.clearRequests();
+        this.calendar.reconcile();
+
+        List<FakeCalendarTransport.Request> listings = this.server.requests().stream().filter(request -> request.method().equals("GET")).toList();
+        assertEquals(2, listings.size());
+        assertNotNull(listings.get(0).syncToken());
+        assertTrue(listings.get(1).isFullListing());
+        assertEquals("Event a", this.summary("a"));
+        // Purged events can't be restored by an update.
+        assertNull(this.server.event(this.id("b")));
+        assertEquals("Event c", this.summary("c"));
+
+        // The full listing issued a new sync token.
+        this.server.clearRequests();
+        this.calendar.reconcile();
+        assertTrue(this.server.requests().stream().noneMatch(FakeCalendarTransport.Request::isFullListing));
+        assertEquals(List.of(), this.writes());
+    }
+
+    @Test
+    void deleteAllEventsUsesSyncState() throws IOException {
+        this.write("a", "b");
+        this.calendar.reconcile();
+        this.server.createOutside("Foreign");
+        this.server.clearRequests();
+        assertEquals(OptionalInt.of(3), this.calendar.deleteAllEvents());
+        assertEquals(List.of(), this.server.liveEvents());
+        assertTrue(this.server.requests().stream().noneMatch(FakeCalendarTransport.Request::isFullListing));
+
+        // Deleted events are no longer managed, so they are not restored.
+        this.server.clearRequests();
+        this.calendar.reconcile();
+        assertEquals(List.of(), this.writes());
+    }
+
+    private GoogleCalendar newCalendar() {
+        GoogleCalendarConfig cfg = new GoogleCalendarConfig();
+        cfg.calendarId(CALENDAR_ID);
+        cfg.reconcile(true);
+        Calendar client = new Calendar.Builder(this.server, GsonFactory.getDefaultInstance(), null)
+                .setRootUrl(FakeCalendarTransport.ROOT_URL)
+                .setApplicationName("Crocus")
+                .build();
+        return new GoogleCalendar(cfg, client, new RateLimiter(), this.dataPath);
+    }
+
+    // Syncs events with the given names into the calendar.
+    private void write(String... names) throws IOException {
+        Map<EventKey, Event> events = new HashMap<>();
+        for (String name : names) {
+            events.put(key(name), Event.builder(name).name("Event " + name).time(START, START.plusSeconds(3600)).build());
+        }
+        this.calendar.updateEvents(new eu.tuxtown.crocus.api.calendar.Calendar.CalendarData(events, Set.of()), this.ids);
+    }
+
+    private String id(String name) {
+        return Objects.requireNonNull(this.ids.getId(key(name)));
+    }
+
+    private @Nullable String summary(String name) {
+        return Objects.requireNonNull(this.server.event(this.id(name))).getSummary();
+    }
+
+    private List<FakeCalendarTransport.Request> writes() {
+        return this.server.requests().stream().filter(FakeCalendarTransport.Request::isWrite).toList();
+    }
+
+    private static EventKey key(String name) {
+        return new EventKey("test", "test", name);
+    }
+
+    private static class Ids implements eu.tuxtown.crocus.api.calendar.Calendar.CalendarIds {
+
+        private final Map<EventKey, String> ids = new HashMap<>();
+
+        @Override
+        public synchronized @Nullable String getId(EventKey key) {
+            return this.ids.get(key);
+        }
+
+        @Override
+        public synchronized void setId(EventKey key, String id) {
+            if (this.ids.putIfAbsent(key, id) != null) throw new IllegalStateException("Duplicate id for " + key);
+        }
+
+        @Override
+        public synchronized void removeId(EventKey key) {
+            this.ids.remove(key);
+        }
+    }
+}
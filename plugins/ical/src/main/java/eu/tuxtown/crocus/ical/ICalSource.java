@@ -4,12 +4,14 @@ import biweekly.Biweekly;
 import biweekly.ICalendar;
 import biweekly.component.VEvent;
 import biweekly.util.ICalDate;
+import eu.tuxtown.crocus.api.Crocus;
 import eu.tuxtown.crocus.api.calendar.Event;
 import eu.tuxtown.crocus.api.calendar.EventSource;
 import eu.tuxtown.crocus.api.resource.Resource;
 import eu.tuxtown.crocus.ical.api.ICalAttributes;
 import eu.tuxtown.crocus.sesquiannual.*;
 import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -18,6 +20,7 @@ import java.time.*;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAmount;
 import java.util.*;
+import java.util.function.Consumer;
 
 @NotNullByDefault
 public class ICalSource implements EventSource {
@@ -28,6 +31,7 @@ public class ICalSource implements EventSource {
     private final TemporalAmount repeatFor;
     private final TemporalAmount repeatFromNow;
     private final SequenceBehavior sequences;
+    private volatile @Nullable ParsedCalendar parsed;
 
     public ICalSource(ICalConfig cfg) {
         this.res = cfg.getSource();
@@ -45,6 +49,30 @@ public class ICalSource implements EventSource {
 
     @Override
     public List<Event> retrieveEvents() throws IOException {
+        return EventSource.collectEvents(this);
+    }
+
+    @Override
+    public void retrieveEvents(Consumer<Event> consumer) throws IOException {
+        CalendarQuery query = new CalendarQuery(this.loadCalendar(), this.timezone);
+
+        // Recurring events can expand to a lot of instances, pass them on one by one.
+        for (VEventGroup group : query.eventGroups()) {
+            ICalDate recurrenceEnd = this.calculateRepeatFor(group);
+            group.instances(this.sequences)
+                    .takeWhile(instance -> instance.startDate().compareTo(recurrenceEnd) <= 0)
+                    .forEach(instance -> consumer.accept(this.createEvent(query, instance)));
+        }
+    }
+
+    // Recurrences are expanded relative to the current time, so only the parsed calendar can be reused.
+    private ICalendar loadCalendar() throws IOException {
+        Optional<String> version = this.res.contentVersion();
+        ParsedCalendar parsed = this.parsed;
+        if (parsed != null && version.isPresent() && parsed.version().equals(version.get())) {
+            Crocus.debug("Calendar not modified since it was last read.");
+            return parsed.calendar();
+        }
         ICalendar calendar;
         try (Reader reader = this.res.openReader(this.charset)) {
             calendar = Biweekly.parse(reader)
@@ -52,20 +80,8 @@ public class ICalSource implements EventSource {
                     .first();
         }
         if (calendar == null) throw new IOException("Empty iCalendar");
-        CalendarQuery query = new CalendarQuery(calendar, this.timezone);
-
-        List<Event> events = new ArrayList<>();
-        for (VEventGroup group : query.eventGroups()) {
-            ICalDate recurrenceEnd = this.calculateRepeatFor(group);
-            List<VEventInstance> instances = group.instances(this.sequences)
-                    .takeWhile(instance -> instance.startDate().compareTo(recurrenceEnd) <= 0)
-                    .toList();
-
-            for (VEventInstance instance : instances) {
-                events.add(this.createEvent(query, instance));
-            }
-        }
-        return Collections.unmodifiableList(events);
+        this.parsed = version.map(v -> new ParsedCalendar(v, calendar)).orElse(null);
+        return calendar;
     }
 
     private Event createEvent(CalendarQuery query, VEventInstance instance) {
@@ -116,4 +132,6 @@ public class ICalSource implements EventSource {
         Instant recEnd = recEndSinceNow.isAfter(recEndSinceEventStart) ? recEndSinceNow : recEndSinceEventStart;
         return new ICalDate(new Date(recEnd.toEpochMilli()), true);
     }
+
+    private record ParsedCalendar(String version, ICalendar calendar) {}
 }